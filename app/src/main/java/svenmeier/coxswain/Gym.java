@@ -18,9 +18,17 @@ package svenmeier.coxswain;
 import android.content.Context;
 import android.location.Location;
 import android.location.LocationManager;
+import android.os.Handler;
+import android.os.Looper;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import propoid.core.Propoid;
 import propoid.db.LookupException;
@@ -30,11 +38,20 @@ import propoid.db.Reference;
 import propoid.db.Repository;
 import propoid.db.Transaction;
 import propoid.db.cascading.DefaultCascading;
+import propoid.util.content.Preference;
+import svenmeier.coxswain.gym.DailySummary;
 import svenmeier.coxswain.gym.Difficulty;
+import svenmeier.coxswain.gym.ImportedWorkout;
 import svenmeier.coxswain.gym.Measurement;
 import svenmeier.coxswain.gym.Program;
 import svenmeier.coxswain.gym.Segment;
 import svenmeier.coxswain.gym.Snapshot;
+import svenmeier.coxswain.gym.SnapshotChunk;
+import svenmeier.coxswain.gym.SnapshotCodec;
+import svenmeier.coxswain.gym.SnapshotSeries;
+import svenmeier.coxswain.gym.Snapshots;
+import svenmeier.coxswain.gym.Statistics;
+import svenmeier.coxswain.gym.StrokeLog;
 import svenmeier.coxswain.gym.Workout;
 
 import static propoid.db.Where.all;
@@ -44,6 +61,21 @@ import static propoid.db.Where.lessThan;
 
 public class Gym {
 
+    /**
+     * Interval to write pending workout and snapshots to the repository.
+     */
+    private static final long FLUSH_INTERVAL_MILLIS = 60000;
+
+    /**
+     * Maximum count of snapshots in a single chunk.
+     */
+    private static final int CHUNK_SNAPSHOTS = 600;
+
+    /**
+     * Maximum snapshots per second.
+     */
+    private static final int MAX_SNAPSHOT_RATE = 10;
+
     private static Gym instance;
 
     private Context context;
@@ -52,30 +84,105 @@ public class Gym {
 
     private List<Listener> listeners = new ArrayList<>();
 
+    /**
+     * Single thread processing all measurements, i.e. the workout engine.
+     */
+    private final ExecutorService engine = Executors.newSingleThreadExecutor();
+
+    /**
+     * Thread for lookups, so they never delay the engine.
+     */
+    private final ExecutorService lookups = Executors.newSingleThreadExecutor();
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private final Changed changed = new Changed();
+
+    /**
+     * Workout waiting to be merged, used on the engine thread only.
+     */
+    private Workout unmerged;
+
+    /**
+     * Chunk currently appended to, used on the engine thread only.
+     */
+    private SnapshotChunk chunk;
+
+    private SnapshotCodec.Encoder encoder;
+
+    /**
+     * Has the chunk snapshots waiting to be written.
+     */
+    private boolean unwritten;
+
+    /**
+     * Workout flushed but not summarized yet, used on the engine thread only.
+     */
+    private Workout unsummarized;
+
+    /**
+     * Lock for migration of legacy snapshots.
+     */
+    private final Object migration = new Object();
+
+    private long flushed;
+
+    /**
+     * Strokes of {@link #strokesWorkout}, used on the engine thread only.
+     */
+    private StrokeLog strokes;
+
+    private Workout strokesWorkout;
+
+    /**
+     * Milliseconds between snapshots, used on the engine thread only.
+     */
+    private int snapshotInterval;
+
+    /**
+     * Offset of last change of duration, used on the engine thread only.
+     */
+    private int changedOffset;
+
+    /**
+     * Offset of last snapshot, used on the engine thread only.
+     */
+    private int snapshotOffset;
+
+    /**
+     * Statistics of the current workout, used on the engine thread only.
+     */
+    private Statistics running;
+
     /**
      * The selected program.
      */
-    public Program program;
+    public volatile Program program;
 
 	/**
      * Optional pace workout.
      */
-    public Workout pace;
+    public volatile Workout pace;
 
 	/**
      * The current workout.
      */
-    public Workout current;
+    public volatile Workout current;
 
     /**
-     * The last measurement.
+     * The last measurement, never modified once published.
      */
-    public Measurement measurement = new Measurement();
+    public volatile Measurement measurement = new Measurement();
 
 	/**
-     * Progress of current workout.
+     * Progress of current workout, never modified once published.
      */
-    public Progress progress;
+    public volatile Progress progress;
+
+    /**
+     * Statistics of current workout, never modified once published.
+     */
+    public volatile Statistics.Values statistics = new Statistics.Values();
 
     private Gym(Context context) {
 
@@ -89,6 +196,17 @@ public class Gym {
         repository.index(workoutIndex, false, Order.descending(workoutIndex.start));
         Snapshot snapshotIndex = new Snapshot();
         repository.index(snapshotIndex, false, Order.ascending(snapshotIndex.workout));
+        SnapshotChunk chunkIndex = new SnapshotChunk();
+        repository.index(chunkIndex, false, Order.ascending(chunkIndex.workout));
+        DailySummary summaryIndex = new DailySummary();
+        repository.index(summaryIndex, false, Order.ascending(summaryIndex.day));
+
+        engine.execute(new Runnable() {
+            @Override
+            public void run() {
+                summarizeAll();
+            }
+        });
     }
 
     public void defaults() {
@@ -150,26 +268,64 @@ public class Gym {
         return repository.lookup(reference);
     }
 
-    public void add(final String programName, final Workout workout, final List<Snapshot> snapshots) {
+    /**
+     * Add an imported workout, its snapshots are inserted in chunks.
+     *
+     * @return {@code false} if the workout is already present
+     * @see #add(List)
+     */
+    public boolean add(String programName, Workout workout, SnapshotSeries series) {
+        return add(Collections.singletonList(new ImportedWorkout(programName, workout, series))) > 0;
+    }
+
+    /**
+     * Add imported workouts in a single transaction, skipping workouts already present with
+     * equal start and distance.
+     *
+     * @return count of added workouts
+     */
+    public int add(final List<ImportedWorkout> imports) {
+        final List<Workout> added = new ArrayList<>();
 
         repository.transactional(new Transaction() {
             @Override
             public void doTransactional() {
-                Program example = new Program();
+                Map<String, Program> programs = new HashMap<>();
+
+                Workout example = new Workout();
+                for (ImportedWorkout imported : imports) {
+                    Workout workout = imported.workout;
+
+                    // lookup by start is covered by index
+                    if (repository.query(example, all(
+                            equal(example.start, workout.start.get()),
+                            equal(example.distance, workout.distance.get()))).count() > 0) {
+                        continue;
+                    }
+
+                    if (programs.containsKey(imported.programName) == false) {
+                        Program programExample = new Program();
+                        programs.put(imported.programName, repository.query(programExample, equal(programExample.name, imported.programName)).first());
+                    }
 
-                // imported workouts are not evaluated by default
-                workout.evaluate.set(false);
+                    // imported workouts are not evaluated by default
+                    workout.evaluate.set(false);
 
-                workout.program.set(repository.query(example, equal(example.name, programName)).first());
-                repository.merge(workout);
+                    workout.program.set(programs.get(imported.programName));
+                    repository.insert(workout);
 
-                for (Snapshot snapshot : snapshots) {
-                    snapshot.workout.set(workout);
+                    insertChunks(workout, imported.series);
 
-                    repository.merge(snapshot);
+                    added.add(workout);
                 }
             }
         });
+
+        for (Workout workout : added) {
+            summarizeLater(workout.start.get());
+        }
+
+        return added.size();
     }
 
     public void mergeProgram(Program program) {
@@ -191,42 +347,168 @@ public class Gym {
         );
     }
 
+    /**
+     * Get all workouts, evaluated or not.
+     */
+    public Match<Workout> getAllWorkouts(long from, long to) {
+        Workout propotype = new Workout();
+
+        return repository.query(propotype, all(
+                greaterEqual(propotype.start, from),
+                lessThan(propotype.start, to))
+        );
+    }
+
+    /**
+     * Get daily summaries of evaluated workouts.
+     */
+    public Match<DailySummary> getSummaries(long from, long to) {
+        DailySummary prototype = new DailySummary();
+
+        return repository.query(prototype, all(
+                greaterEqual(prototype.day, from),
+                lessThan(prototype.day, to))
+        );
+    }
+
     public void delete(Propoid propoid) {
         if (propoid instanceof Workout) {
             Snapshot prototype = new Snapshot();
             repository.query(prototype, equal(prototype.workout, (Workout) propoid)).delete();
+
+            SnapshotChunk chunkPrototype = new SnapshotChunk();
+            repository.query(chunkPrototype, equal(chunkPrototype.workout, (Workout) propoid)).delete();
         }
 
         repository.delete(propoid);
+
+        if (propoid instanceof Workout) {
+            summarizeLater(((Workout) propoid).start.get());
+        }
     }
 
     public void mergeWorkout(Workout workout) {
         repository.merge(workout);
+
+        summarizeLater(workout.start.get());
+    }
+
+    /**
+     * Summarize the day of the given time on the engine thread, i.e. after all pending changes.
+     */
+    private void summarizeLater(final long time) {
+        engine.execute(new Runnable() {
+            @Override
+            public void run() {
+                summarize(DailySummary.dayOf(time));
+            }
+        });
     }
 
-    public void deselect() {
+    /**
+     * Update the summary of a single day - engine thread only.
+     */
+    private void summarize(final long day) {
+        Workout prototype = new Workout();
+        final List<Workout> workouts = repository.query(prototype, all(
+                equal(prototype.evaluate, true),
+                greaterEqual(prototype.start, day),
+                lessThan(prototype.start, DailySummary.nextDay(day)))
+        ).list();
+
+        repository.transactional(new Transaction() {
+            @Override
+            public void doTransactional() {
+                DailySummary summaryPrototype = new DailySummary();
+                repository.query(summaryPrototype, equal(summaryPrototype.day, day)).delete();
+
+                if (workouts.isEmpty() == false) {
+                    DailySummary summary = new DailySummary(day);
+                    for (Workout workout : workouts) {
+                        summary.add(workout);
+                    }
+                    repository.insert(summary);
+                }
+            }
+        });
+
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                for (Listener listener : listeners) {
+                    if (listener instanceof SummaryListener) {
+                        ((SummaryListener) listener).summarized(day);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Build summaries of all existing workouts, once only - engine thread only.
+     */
+    private void summarizeAll() {
+        if (repository.query(new DailySummary()).count() > 0) {
+            return;
+        }
+
+        Workout prototype = new Workout();
+        final List<Workout> workouts = repository.query(prototype, equal(prototype.evaluate, true)).list();
+        if (workouts.isEmpty()) {
+            return;
+        }
+
+        final Map<Long, DailySummary> summaries = new HashMap<>();
+        for (Workout workout : workouts) {
+            long day = DailySummary.dayOf(workout.start.get());
+
+            DailySummary summary = summaries.get(day);
+            if (summary == null) {
+                summary = new DailySummary(day);
+                summaries.put(day, summary);
+            }
+            summary.add(workout);
+        }
+
+        repository.transactional(new Transaction() {
+            @Override
+            public void doTransactional() {
+                for (DailySummary summary : summaries.values()) {
+                    repository.insert(summary);
+                }
+            }
+        });
+    }
+
+    public synchronized void deselect() {
         this.pace = null;
         this.program = null;
 
         this.measurement = new Measurement();
         this.current = null;
         this.progress = null;
+        this.statistics = new Statistics.Values();
+
+        flushLater();
 
         fireChanged();
     }
 
-    public void repeat(Program program) {
+    public synchronized void repeat(Program program) {
         this.pace = null;
         this.program = program;
 
         this.measurement = new Measurement();
         this.current = null;
         this.progress = null;
+        this.statistics = new Statistics.Values();
+
+        flushLater();
 
         fireChanged();
     }
 
-    public void repeat(Workout pace) {
+    public synchronized void repeat(Workout pace) {
         Program program = null;
         try {
             program = pace.program.get();
@@ -242,80 +524,328 @@ public class Gym {
         this.measurement = new Measurement();
         this.current = null;
         this.progress = null;
+        this.statistics = new Statistics.Values();
+
+        flushLater();
 
         fireChanged();
     }
 
-    public void challenge(Workout pace) {
+    public synchronized void challenge(Workout pace) {
         this.pace = pace;
         this.program = Program.meters(context.getString(R.string.action_challenge), pace.distance.get(), Difficulty.NONE);
 
         this.measurement = new Measurement();
         this.current = null;
         this.progress = null;
+        this.statistics = new Statistics.Values();
+
+        flushLater();
 
         fireChanged();
     }
 
+    /**
+     * Execute on the workout engine thread.
+     *
+     * @see #onMeasured(Measurement)
+     */
+    public void execute(Runnable runnable) {
+        engine.execute(runnable);
+    }
+
+    /**
+     * Execute a lookup in the background, off the workout engine thread.
+     *
+     * @see #getSnapshots(Workout)
+     */
+    public void lookup(Runnable runnable) {
+        lookups.execute(runnable);
+    }
+
+    /**
+     * New strokes - must be called on the workout engine thread only.
+     *
+     * @param strokes
+     *
+     * @see #execute(Runnable)
+     */
+    public void onStrokes(StrokeLog strokes) {
+        Workout workout = current;
+        if (workout == null || strokes.isEmpty()) {
+            return;
+        }
+
+        if (workout != strokesWorkout) {
+            this.strokesWorkout = workout;
+            this.strokes = new StrokeLog();
+        }
+        this.strokes.addAll(strokes);
+    }
+
 	/**
-     * A new measurement.
+     * A new measurement - must be called on the workout engine thread only.
      *
      * @param measurement
+     *
+     * @see #execute(Runnable)
      */
     public Event onMeasured(Measurement measurement) {
         Event event = Event.ACKNOLEDGED;
 
-        this.measurement = measurement;
+        Workout merge = null;
+        Snapshot snapshot = null;
 
-        if (program != null) {
-            // program is selected
+        synchronized (this) {
+            this.measurement = new Measurement(measurement);
 
-            if (measurement.distance > 0 || measurement.duration > 0) {
-                // delay workout creation
+            if (program != null) {
+                // program is selected
 
-                if (current == null) {
-                    current = program.newWorkout();
-                    current.location.set(getLocation());
+                if (measurement.distance > 0 || measurement.duration > 0) {
+                    // delay workout creation
 
-                    progress = new Progress(program.getSegment(0), new Measurement());
+                    if (current == null) {
+                        current = program.newWorkout();
+                        current.location.set(getLocation());
 
-                    event = Event.PROGRAM_START;
-                }
+                        int rate = Preference.getInt(context, R.string.preference_snapshot_rate).fallback(1).get();
+                        snapshotInterval = 1000 / Math.max(1, Math.min(rate, MAX_SNAPSHOT_RATE));
+                        changedOffset = -Integer.MAX_VALUE / 2;
+                        snapshotOffset = -snapshotInterval;
 
-                if (current.onMeasured(measurement)) {
-                    mergeWorkout(current);
+                        running = new Statistics();
 
-                    Snapshot snapshot = new Snapshot(measurement);
-                    snapshot.workout.set(current);
-                    repository.insert(snapshot);
-                }
+                        progress = new Progress(program.getSegment(0), new Measurement(), this.measurement);
+
+                        event = Event.PROGRAM_START;
+                    }
+
+                    int offset = (int)(System.currentTimeMillis() - current.start.get());
+                    if (current.onMeasured(measurement)) {
+                        merge = current;
+
+                        changedOffset = offset;
+                    }
+
+                    // snapshots and statistics while rowing only, i.e. duration changed within the last second
+                    boolean rowing = offset - changedOffset <= 1000;
+                    if (rowing) {
+                        statistics = running.measured(offset, measurement);
+                    }
+                    if (rowing && offset - snapshotOffset >= snapshotInterval) {
+                        snapshotOffset = offset;
+
+                        snapshot = new Snapshot(measurement);
+                        snapshot.workout.set(current);
+                        snapshot.offset.set(offset);
+                    }
+
+                    if (progress != null) {
+                        progress = progress.measured(this.measurement);
+
+                        if (progress.completion() == 1.0f) {
+                            Segment next = program.getNextSegment(progress.segment);
+                            if (next == null) {
+                                merge = current;
 
-                if (progress != null && progress.completion() == 1.0f) {
-                    Segment next = program.getNextSegment(progress.segment);
-                    if (next == null) {
-                        mergeWorkout(current);
+                                progress = null;
 
-                        progress = null;
+                                event = Event.PROGRAM_FINISHED;
+                            } else {
+                                progress = new Progress(next, this.measurement, this.measurement);
 
-                        event = Event.PROGRAM_FINISHED;
-                    } else {
-                        progress = new Progress(next, measurement);
+                                running.segment();
 
-                        event = Event.SEGMENT_CHANGED;
+                                event = Event.SEGMENT_CHANGED;
+                            }
+                        }
                     }
                 }
             }
         }
 
+        // persist outside of lock
+        if (merge != null) {
+            if (unmerged != null && unmerged != merge) {
+                // workout was replaced
+                flush(true);
+            }
+            unmerged = merge;
+        }
+        if (snapshot != null) {
+            append(snapshot);
+        }
+        boolean due = System.currentTimeMillis() - flushed >= FLUSH_INTERVAL_MILLIS;
+        if (event == Event.SEGMENT_CHANGED || event == Event.PROGRAM_FINISHED || due) {
+            // summarize periodically too, so a killed process still leaves a summary
+            flush(event == Event.PROGRAM_FINISHED || due);
+        }
+
         fireChanged();
 
         return event;
     }
 
-    public Match<Snapshot> getSnapshots(Workout workout) {
-        Snapshot prototype = new Snapshot();
+    /**
+     * Flush on the engine thread, i.e. after all measurements already posted, the selection
+     * changed so the current workout is finished.
+     */
+    private void flushLater() {
+        engine.execute(new Runnable() {
+            @Override
+            public void run() {
+                flush(true);
+            }
+        });
+    }
+
+    /**
+     * Append a snapshot to the current chunk - engine thread only.
+     */
+    private void append(Snapshot snapshot) {
+        Workout workout = snapshot.workout.get();
+
+        if (chunk == null || chunk.workout.get() != workout || encoder.count() == CHUNK_SNAPSHOTS) {
+            if (unwritten) {
+                flush(false);
+            }
+
+            chunk = new SnapshotChunk(workout);
+            encoder = new SnapshotCodec.Encoder();
+        }
+
+        encoder.append(snapshot);
+        unwritten = true;
+    }
+
+    /**
+     * Flush pending workout and snapshots - engine thread only.
+     *
+     * @param summarize should the flushed workout be summarized
+     */
+    private void flush(boolean summarize) {
+        flushed = System.currentTimeMillis();
+
+        if (unmerged != null) {
+            unsummarized = unmerged;
+        }
+
+        if (unmerged != null || unwritten) {
+            write();
+        }
+
+        if (summarize && unsummarized != null) {
+            summarize(DailySummary.dayOf(unsummarized.start.get()));
+            unsummarized = null;
+        }
+    }
+
+    /**
+     * Write pending workout and snapshots in a single transaction - engine thread only.
+     */
+    private void write() {
+        final Workout workout = unmerged;
+        repository.transactional(new Transaction() {
+            @Override
+            public void doTransactional() {
+                if (workout != null) {
+                    if (workout == strokesWorkout) {
+                        workout.strokeLog.set(strokes.toBytes());
+                    }
+
+                    repository.merge(workout);
+                }
+
+                if (unwritten) {
+                    chunk.count.set(encoder.count());
+                    chunk.data.set(encoder.toBytes());
+                    repository.merge(chunk);
+                }
+            }
+        });
+
+        unmerged = null;
+        unwritten = false;
+    }
+
+    /**
+     * Get the snapshots of a workout - legacy snapshots are migrated to chunks first.
+     */
+    public Snapshots getSnapshots(Workout workout) {
+        migrate(workout);
+
+        SnapshotChunk prototype = new SnapshotChunk();
+        List<SnapshotChunk> chunks = repository.query(prototype, equal(prototype.workout, workout)).list(Order.ascendingByInsert());
+
+        return new Snapshots(chunks);
+    }
+
+    /**
+     * Migrate snapshots stored as separate rows into chunks.
+     */
+    private void migrate(final Workout workout) {
+        synchronized (migration) {
+            Snapshot prototype = new Snapshot();
+            final Match<Snapshot> legacy = repository.query(prototype, equal(prototype.workout, workout));
+            if (legacy.count() == 0) {
+                return;
+            }
+
+            final List<Snapshot> snapshots = legacy.list(Order.ascendingByInsert());
+            for (int index = 0; index < snapshots.size(); index++) {
+                // legacy snapshots were taken each second, starting after the first one
+                snapshots.get(index).offset.set((index + 1) * 1000);
+            }
+            repository.transactional(new Transaction() {
+                @Override
+                public void doTransactional() {
+                    insertChunks(workout, snapshots);
+
+                    legacy.delete();
+                }
+            });
+        }
+    }
+
+    private void insertChunks(Workout workout, Iterable<Snapshot> snapshots) {
+        SnapshotCodec.Encoder encoder = new SnapshotCodec.Encoder();
+        for (Snapshot snapshot : snapshots) {
+            encoder.append(snapshot);
+
+            if (encoder.count() == CHUNK_SNAPSHOTS) {
+                insertChunk(workout, encoder);
+                encoder = new SnapshotCodec.Encoder();
+            }
+        }
 
-        return repository.query(prototype, equal(prototype.workout, workout));
+        if (encoder.count() > 0) {
+            insertChunk(workout, encoder);
+        }
+    }
+
+    private void insertChunks(Workout workout, SnapshotSeries series) {
+        SnapshotCodec.Encoder encoder = new SnapshotCodec.Encoder();
+        for (int index = 0; index < series.size(); index++) {
+            encoder.append(series, index);
+
+            if (encoder.count() == CHUNK_SNAPSHOTS) {
+                insertChunk(workout, encoder);
+                encoder = new SnapshotCodec.Encoder();
+            }
+        }
+
+        if (encoder.count() > 0) {
+            insertChunk(workout, encoder);
+        }
+    }
+
+    private void insertChunk(Workout workout, SnapshotCodec.Encoder encoder) {
+        SnapshotChunk chunk = new SnapshotChunk(workout);
+        chunk.count.set(encoder.count());
+        chunk.data.set(encoder.toBytes());
+
+        repository.insert(chunk);
     }
 
     public Location getLocation() {
@@ -340,6 +870,9 @@ public class Gym {
         return bestLocation;
     }
 
+    /**
+     * Progress of a segment - immutable, a new progress is created for each measurement.
+     */
     public class Progress {
 
         public final Segment segment;
@@ -349,10 +882,23 @@ public class Gym {
          */
         private final Measurement startMeasurement;
 
-        public Progress(Segment segment, Measurement measurement) {
+        /**
+         * Measurement of this progress
+         */
+        private final Measurement measurement;
+
+        Progress(Segment segment, Measurement startMeasurement, Measurement measurement) {
             this.segment = segment;
 
-            this.startMeasurement = new Measurement(measurement);
+            this.startMeasurement = startMeasurement;
+            this.measurement = measurement;
+        }
+
+        /**
+         * Progress of the same segment with a new measurement.
+         */
+        Progress measured(Measurement measurement) {
+            return new Progress(segment, startMeasurement, measurement);
         }
 
         public float completion() {
@@ -380,11 +926,11 @@ public class Gym {
         }
 
         public boolean inLimit() {
-            if (measurement.speed < progress.segment.speed.get()) {
+            if (measurement.speed < segment.speed.get()) {
                 return false;
-            } else if (measurement.pulse < progress.segment.pulse.get()) {
+            } else if (measurement.pulse < segment.pulse.get()) {
                 return false;
-            } else if (measurement.strokeRate < progress.segment.strokeRate.get()) {
+            } else if (measurement.strokeRate < segment.strokeRate.get()) {
                 return false;
             }
 
@@ -435,9 +981,37 @@ public class Gym {
         }
     }
 
+    /**
+     * Notify listeners - on the main thread, immediately if already on it.
+     */
     private void fireChanged() {
-        for (Listener listener : listeners) {
-            listener.changed();
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            changed.run();
+        } else {
+            changed.post();
+        }
+    }
+
+    /**
+     * Notification of listeners, posted at most once.
+     */
+    private class Changed implements Runnable {
+
+        private final AtomicBoolean pending = new AtomicBoolean();
+
+        public void post() {
+            if (pending.compareAndSet(false, true)) {
+                handler.post(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            pending.set(false);
+
+            for (Listener listener : listeners) {
+                listener.changed();
+            }
         }
     }
 
@@ -452,4 +1026,11 @@ public class Gym {
     public interface Listener {
         void changed();
     }
+
+    /**
+     * Listener to changes of daily summaries.
+     */
+    public interface SummaryListener extends Listener {
+        void summarized(long day);
+    }
 }
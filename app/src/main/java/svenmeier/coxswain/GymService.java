@@ -28,8 +28,14 @@ import android.hardware.usb.UsbManager;
 import android.os.Handler;
 import android.os.IBinder;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import propoid.util.content.Preference;
+import svenmeier.coxswain.gym.Measurement;
 import svenmeier.coxswain.gym.Program;
+import svenmeier.coxswain.gym.StrokeLog;
 import svenmeier.coxswain.motivator.DefaultMotivator;
 import svenmeier.coxswain.motivator.Motivator;
 import svenmeier.coxswain.rower.Rower;
@@ -48,7 +54,7 @@ public class GymService extends Service {
 
     private Preference<Boolean> openEnd;
 
-    private Rowing rowing;
+    private volatile Rowing rowing;
 
     private Foreground foreground;
 
@@ -133,7 +139,11 @@ public class GymService extends Service {
 
         private final Motivator motivator;
 
-        private Program program;
+        private volatile Program program;
+
+        private final Update update = new Update();
+
+        private final Feedback feedback = new Feedback();
 
         public Rowing(Rower rower) {
             this.rower = rower;
@@ -169,38 +179,7 @@ public class GymService extends Service {
 
                     heart.pulse();
 
-                    handler.post(new Runnable() {
-                        @Override
-                        public void run() {
-                            if (GymService.this.rowing != Rowing.this) {
-                                // no longer current
-                                return;
-                            }
-
-                            if (gym.program ==  null) {
-                                foreground.connected(String.format(getString(R.string.gym_notification_connected), rower.getName()));
-                                return;
-                            } else if (gym.program != program) {
-                                // program changed
-                                return;
-                            }
-
-                            String text = program.name.get();
-                            float completion = 0;
-                            if (gym.progress != null) {
-                                text += " - " +  gym.progress.describe();
-                                completion = gym.progress.completion();
-                            }
-                            foreground.workout(text, completion);
-
-                            Event event = gym.onMeasured(rower);
-                            motivator.onEvent(event);
-
-                            if (event == Event.PROGRAM_FINISHED && openEnd.get() == false) {
-                                gym.deselect();
-                            }
-                        }
-                    });
+                    update.post(rower);
                 }
 
                 rower.close();
@@ -218,6 +197,137 @@ public class GymService extends Service {
             });
         }
 
+        /**
+         * Update of the gym with the latest measurement - executed on the gym's engine thread
+         * only if not already pending, so updates never pile up when the engine is busy.
+         */
+        private class Update implements Runnable {
+
+            private final AtomicBoolean pending = new AtomicBoolean();
+
+            /**
+             * Latest measurement, guarded by itself.
+             */
+            private final Measurement latest = new Measurement();
+
+            /**
+             * Measurement handed to the gym, used on the engine thread only.
+             */
+            private final Measurement measurement = new Measurement();
+
+            /**
+             * Strokes handed to the gym, used on the engine thread only.
+             */
+            private final StrokeLog strokes = new StrokeLog();
+
+            /**
+             * Post the given measurement - called on the rowing thread.
+             */
+            public void post(Measurement measurement) {
+                synchronized (latest) {
+                    latest.set(measurement);
+                }
+
+                if (pending.compareAndSet(false, true)) {
+                    gym.execute(this);
+                }
+            }
+
+            @Override
+            public void run() {
+                pending.set(false);
+
+                synchronized (latest) {
+                    measurement.set(latest);
+                }
+
+                if (GymService.this.rowing != Rowing.this) {
+                    // no longer current
+                    return;
+                }
+
+                rower.drainStrokes(strokes);
+
+                if (gym.program != null && gym.program == program) {
+                    gym.onStrokes(strokes);
+                    strokes.clear();
+
+                    feedback.post(gym.onMeasured(measurement));
+                } else {
+                    strokes.clear();
+
+                    feedback.post(Event.ACKNOLEDGED);
+                }
+            }
+        }
+
+        /**
+         * Feedback of updates to foreground and motivator - posted to the main thread only
+         * if not already pending, events other than {@link Event#ACKNOLEDGED} are queued
+         * so none of them gets lost.
+         */
+        private class Feedback implements Runnable {
+
+            private final AtomicBoolean pending = new AtomicBoolean();
+
+            private final Queue<Event> events = new ConcurrentLinkedQueue<>();
+
+            /**
+             * Post an event - called on the engine thread.
+             */
+            public void post(Event event) {
+                if (event != Event.ACKNOLEDGED) {
+                    events.offer(event);
+                }
+
+                if (pending.compareAndSet(false, true)) {
+                    handler.post(this);
+                }
+            }
+
+            @Override
+            public void run() {
+                pending.set(false);
+
+                if (GymService.this.rowing != Rowing.this) {
+                    // no longer current
+                    events.clear();
+                    return;
+                }
+
+                if (gym.program ==  null) {
+                    events.clear();
+                    foreground.connected(String.format(getString(R.string.gym_notification_connected), rower.getName()));
+                    return;
+                } else if (gym.program != program) {
+                    // program changed
+                    events.clear();
+                    return;
+                }
+
+                String text = program.name.get();
+                float completion = 0;
+                Gym.Progress progress = gym.progress;
+                if (progress != null) {
+                    text += " - " +  progress.describe();
+                    completion = progress.completion();
+                }
+                foreground.workout(text, completion);
+
+                Event event = events.poll();
+                if (event == null) {
+                    motivator.onEvent(Event.ACKNOLEDGED);
+                } else {
+                    do {
+                        motivator.onEvent(event);
+
+                        if (event == Event.PROGRAM_FINISHED && openEnd.get() == false) {
+                            gym.deselect();
+                        }
+                    } while ((event = events.poll()) != null);
+                }
+            }
+        }
     }
 
     private class Foreground {
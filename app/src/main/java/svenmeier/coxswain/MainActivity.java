@@ -125,8 +125,9 @@ public class MainActivity extends AbstractActivity {
             programNameView.setText(gym.program.name.get());
 
             String description = getString(R.string.gym_ready);
-            if (gym.progress != null) {
-                description = gym.progress.describe();
+            Gym.Progress progress = gym.progress;
+            if (progress != null) {
+                description = progress.describe();
             }
             programCurrentView.setText(description);
         }
@@ -198,6 +199,9 @@ public class MainActivity extends AbstractActivity {
                 MockRower.openMock.close();
             }
 
+            return true;
+        } else if (id == R.id.action_import) {
+            new ImportIntention(this).importFolder();
             return true;
         } else if (id == R.id.action_settings) {
             startActivity(SettingsActivity.createIntent(this));
@@ -28,23 +28,26 @@ import android.view.View;
 import android.widget.TextView;
 
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.TimeZone;
 
-import propoid.db.Order;
 import propoid.db.Reference;
-import propoid.ui.list.MatchLookup;
 import propoid.util.content.Preference;
-import svenmeier.coxswain.gym.Snapshot;
+import svenmeier.coxswain.gym.SnapshotChunk;
+import svenmeier.coxswain.gym.SnapshotPyramid;
+import svenmeier.coxswain.gym.SnapshotSeries;
 import svenmeier.coxswain.gym.Workout;
+import svenmeier.coxswain.util.LongLruCache;
 import svenmeier.coxswain.view.TimelineView;
 import svenmeier.coxswain.view.Utils;
 
 
 public class SnapshotsActivity extends AbstractActivity implements View.OnClickListener {
 
-    public static final int RESOLUTION = 10;
+    /**
+     * Maximum count of cached header texts.
+     */
+    private static final int HEADERS = 128;
 
     private Gym gym;
 
@@ -54,16 +57,16 @@ public class SnapshotsActivity extends AbstractActivity implements View.OnClickL
 
     private int highlight;
 
-    private List<Snapshot> snapshots = new ArrayList<>();
+    private SnapshotSeries snapshots = new SnapshotSeries();
 
-    private Snapshot minSnapshot;
-
-    private Snapshot maxSnapshot;
+    private SnapshotPyramid pyramid = new SnapshotPyramid();
 
     private TextView titleView;
 
     private TimelineView timelineView;
 
+    private SnapshotPeriods periods;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -89,9 +92,10 @@ public class SnapshotsActivity extends AbstractActivity implements View.OnClickL
 
         timelineView = (TimelineView) findViewById(R.id.snapshots_timeline);
         timelineView.setOnClickListener(this);
-        timelineView.setPeriods(new SnapshotPeriods());
+        periods = new SnapshotPeriods();
+        timelineView.setPeriods(periods);
 
-        new SnapshotLookup().restartLoader(0, this);
+        new SnapshotLookup().start();
     }
 
     @Override
@@ -166,6 +170,27 @@ public class SnapshotsActivity extends AbstractActivity implements View.OnClickL
 
         private Path path = new Path();
 
+        /**
+         * Rendered header texts by start of period.
+         */
+        private LongLruCache<String> whens = new LongLruCache<>(HEADERS);
+        private LongLruCache<String> whats = new LongLruCache<>(HEADERS);
+
+        private TimelineView.Unit fiveMinutes = new TimelineView.MinuteUnit(0, 5);
+        private TimelineView.Unit minute = new TimelineView.MinuteUnit(0);
+        private TimelineView.Unit fifteenSeconds = new TimelineView.SecondUnit(0, 15);
+        private TimelineView.Unit tenSeconds = new TimelineView.SecondUnit(0, 10);
+
+        private int[] aggregate = new int[3];
+
+        /**
+         * Coordinates of points of a curve, reused for each paint.
+         */
+        private float[] ys = new float[0];
+        private float[] lows = new float[0];
+        private float[] highs = new float[0];
+        private float[] means = new float[0];
+
         public SnapshotPeriods() {
             dateFormat = new SimpleDateFormat("H:mm:ss");
             dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
@@ -178,7 +203,11 @@ public class SnapshotsActivity extends AbstractActivity implements View.OnClickL
 
         @Override
         public long max() {
-            return workout.duration.get() * 1000;
+            long max = workout.duration.get() * 1000;
+            if (snapshots.isEmpty() == false) {
+                max = Math.max(max, snapshots.offset[snapshots.size() - 1]);
+            }
+            return max;
         }
 
         @Override
@@ -195,25 +224,22 @@ public class SnapshotsActivity extends AbstractActivity implements View.OnClickL
         @Override
         public TimelineView.Unit unit(long time, long window) {
             if (window > 10 * TimelineView.MINUTE) {
-                return new TimelineView.MinuteUnit(time, 5);
+                return fiveMinutes.at(time);
             } else if (window > 4 * TimelineView.MINUTE) {
-                return new TimelineView.MinuteUnit(time);
+                return minute.at(time);
             } else if (window > 2 * TimelineView.MINUTE) {
-                return new TimelineView.SecondUnit(time, 15);
+                return fifteenSeconds.at(time);
             } else {
-                return new TimelineView.SecondUnit(time, 10);
+                return tenSeconds.at(time);
             }
         }
 
         @Override
         public void paint(Class<?> unit, long from, long to, Canvas canvas, RectF rect) {
 
-            int start = (int)(from / 1000);
-            int end = (int)(to / 1000);
-
-            paintCurve(canvas, rect, start, end, 0);
-            paintCurve(canvas, rect, start, end, 1);
-            paintCurve(canvas, rect, start, end, 2);
+            paintCurve(canvas, rect, from, to, 0);
+            paintCurve(canvas, rect, from, to, 1);
+            paintCurve(canvas, rect, from, to, 2);
 
             paintHeader(from, canvas, rect);
         }
@@ -222,23 +248,13 @@ public class SnapshotsActivity extends AbstractActivity implements View.OnClickL
             paint.setTextSize(textSize);
             paint.getFontMetrics(metrics);
 
-            int index = (int)(from / 1000);
-            if (index >= 0 && index < snapshots.size()) {
-                Snapshot snapshot = snapshots.get(index);
-
-                String what;
-                switch (highlight) {
-                    case 0:
-                        what = String.format(getString(R.string.speed_metersPerSecond_abbr), snapshot.speed.get() / 100f);
-                        break;
-                    case 1:
-                        what = String.format(getString(R.string.pulse_beatsPerMinute_abbr), snapshot.pulse.get());
-                        break;
-                    case 2:
-                        what = String.format(getString(R.string.strokeRate_strokesPerMinute_abbr), snapshot.strokeRate.get());
-                        break;
-                    default:
-                        throw new IndexOutOfBoundsException();
+            int index = snapshots.indexAt(from);
+            if (index >= 0) {
+                long key = (from << 2) | highlight;
+                String what = whats.get(key);
+                if (what == null) {
+                    what = describe(index);
+                    whats.put(key, what);
                 }
                 float whatWidth = paint.measureText(what);
 
@@ -247,7 +263,11 @@ public class SnapshotsActivity extends AbstractActivity implements View.OnClickL
                 canvas.drawText(what, rect.right - padding - whatWidth, rect.top + padding - metrics.top, paint);
             }
 
-            String when = dateFormat.format(from);
+            String when = whens.get(from);
+            if (when == null) {
+                when = dateFormat.format(from);
+                whens.put(from, when);
+            }
 
             paint.setStyle(Paint.Style.FILL);
             paint.setColor(timelineView.getForegroundColor());
@@ -256,54 +276,60 @@ public class SnapshotsActivity extends AbstractActivity implements View.OnClickL
             return -metrics.top;
         }
 
-        private void paintCurve(Canvas canvas, RectF rect, int start, int end, int property) {
-            path.reset();
-
-            float y = -1;
-
-            for (int index = 0; index <= RESOLUTION; index++) {
+        private String describe(int index) {
+            switch (highlight) {
+                case 0:
+                    return String.format(getString(R.string.speed_metersPerSecond_abbr), snapshots.speed[index] / 100f);
+                case 1:
+                    return String.format(getString(R.string.pulse_beatsPerMinute_abbr), snapshots.pulse[index]);
+                case 2:
+                    return String.format(getString(R.string.strokeRate_strokesPerMinute_abbr), snapshots.strokeRate[index]);
+                default:
+                    throw new IndexOutOfBoundsException();
+            }
+        }
 
-                int current = start + ((end - start) * index / RESOLUTION);
-                if (current < 0 || current >= snapshots.size()) {
+        /**
+         * Paint a curve with one point per stroke width, using the pyramid level fitting the time per point.
+         */
+        private void paintCurve(Canvas canvas, RectF rect, long from, long to, int property) {
+            int min = pyramid.min(property);
+            int max = pyramid.max(property);
+
+            float height = rect.height();
+            long millisPerPoint = Math.max(1, (long)((to - from) * strokeWidth / height));
+            SnapshotPyramid.Level level = pyramid.level(millisPerPoint);
+            long step = Math.max(millisPerPoint, level.millis);
+
+            int points = 0;
+            for (long time = from; time < to; time += step) {
+                if (level.aggregate(property, time, time + step, aggregate) == false) {
                     continue;
                 }
-                Snapshot snapshot = snapshots.get(current);
-
-                int value;
-                int min;
-                int max;
-                switch (property) {
-                    case 0:
-                        value = snapshot.speed.get();
-                        min = minSnapshot.speed.get();
-                        max = maxSnapshot.speed.get();
-                        break;
-                    case 1:
-                        value = snapshot.pulse.get();
-                        min = minSnapshot.pulse.get();
-                        max = maxSnapshot.pulse.get();
-                        break;
-                    case 2:
-                        value = snapshot.strokeRate.get();
-                        min = minSnapshot.strokeRate.get();
-                        max = maxSnapshot.strokeRate.get();
-                        break;
-                    default:
-                        throw new IndexOutOfBoundsException();
-                }
 
-                float width = rect.width() - padding - padding;
-                float x = rect.left + padding;
-                if (max > min) {
-                    x += width * 0.75f * (value - min) / (max - min);
+                if (points == ys.length) {
+                    int capacity = Math.max(16, points * 2);
+                    ys = Arrays.copyOf(ys, capacity);
+                    lows = Arrays.copyOf(lows, capacity);
+                    highs = Arrays.copyOf(highs, capacity);
+                    means = Arrays.copyOf(means, capacity);
                 }
-                y = rect.top + (rect.height() * index / RESOLUTION);
 
-                if (path.isEmpty()) {
-                    path.moveTo(x, y);
-                } else {
-                    path.lineTo(x, y);
-                }
+                ys[points] = Math.min(rect.bottom, rect.top + height * (time + step / 2 - from) / (to - from));
+                lows[points] = toX(rect, aggregate[0], min, max);
+                highs[points] = toX(rect, aggregate[1], min, max);
+                means[points] = toX(rect, aggregate[2], min, max);
+                points++;
+            }
+
+            if (points == 0) {
+                return;
+            }
+
+            path.reset();
+            path.moveTo(means[0], ys[0]);
+            for (int point = 1; point < points; point++) {
+                path.lineTo(means[point], ys[point]);
             }
 
             paint.setStyle(Paint.Style.STROKE);
@@ -315,43 +341,78 @@ public class SnapshotsActivity extends AbstractActivity implements View.OnClickL
             paint.setStrokeWidth(strokeWidth);
             canvas.drawPath(path, paint);
 
-            if (y != -1 && property == highlight) {
-                path.lineTo(rect.left + padding, y);
-                path.lineTo(rect.left + padding, rect.top);
+            if (property == highlight) {
+                // range between minimum and maximum
+                path.reset();
+                path.moveTo(highs[0], ys[0]);
+                for (int point = 1; point < points; point++) {
+                    path.lineTo(highs[point], ys[point]);
+                }
+                for (int point = points - 1; point >= 0; point--) {
+                    path.lineTo(lows[point], ys[point]);
+                }
+                path.close();
 
                 paint.setStyle(Paint.Style.FILL);
                 paint.setColor(0x203567ed);
                 canvas.drawPath(path, paint);
             }
         }
+
+        private float toX(RectF rect, int value, int min, int max) {
+            float width = rect.width() - padding - padding;
+            float x = rect.left + padding;
+            if (max > min) {
+                x += width * 0.75f * (value - min) / (max - min);
+            }
+            return x;
+        }
     }
 
-    private class SnapshotLookup extends MatchLookup<Snapshot> {
+    /**
+     * Lookup of snapshots in the background, streamed chunk by chunk starting with the
+     * visible window.
+     */
+    private class SnapshotLookup implements Runnable {
 
-        public SnapshotLookup() {
-            super(gym.getSnapshots(workout));
+        private long from;
 
-            setOrder(Order.ascendingByInsert());
+        private long to;
+
+        public void start() {
+            to = timelineView.getTime();
+            from = to - windowPreference.get();
+
+            gym.lookup(this);
         }
 
         @Override
-        protected void onLookup(List<Snapshot> lookup) {
-            snapshots = new ArrayList<>(lookup);
-
-            minSnapshot = new Snapshot();
-            minSnapshot.speed.set(Integer.MAX_VALUE);
-            minSnapshot.strokeRate.set(Integer.MAX_VALUE);
-            minSnapshot.pulse.set(Integer.MAX_VALUE);
-            maxSnapshot = new Snapshot();
-            for (Snapshot snapshot : snapshots) {
-                minSnapshot.speed.set(Math.min(minSnapshot.speed.get(), snapshot.speed.get()));
-                minSnapshot.strokeRate.set(Math.min(minSnapshot.strokeRate.get(), snapshot.strokeRate.get()));
-                minSnapshot.pulse.set(Math.min(minSnapshot.pulse.get(), snapshot.pulse.get()));
-
-                maxSnapshot.speed.set(Math.max(maxSnapshot.speed.get(), snapshot.speed.get()));
-                maxSnapshot.strokeRate.set(Math.max(maxSnapshot.strokeRate.get(), snapshot.strokeRate.get()));
-                maxSnapshot.pulse.set(Math.max(maxSnapshot.pulse.get(), snapshot.pulse.get()));
+        public void run() {
+            for (SnapshotChunk chunk : gym.getSnapshots(workout).chunks(from, to)) {
+                if (isFinishing()) {
+                    break;
+                }
+
+                final SnapshotSeries lookup = new SnapshotSeries(chunk.count.get());
+                chunk.decodeInto(lookup);
+
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        onLookup(lookup);
+                    }
+                });
             }
+        }
+
+        /**
+         * Merge snapshots of a single chunk.
+         */
+        protected void onLookup(SnapshotSeries lookup) {
+            snapshots.insert(lookup);
+            pyramid.addAll(lookup);
+
+            periods.whats.clear();
 
             timelineView.postInvalidate();
         }
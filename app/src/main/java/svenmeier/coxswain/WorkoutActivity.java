@@ -28,11 +28,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
-import propoid.ui.list.MatchLookup;
 import propoid.util.content.Preference;
 import svenmeier.coxswain.gym.Measurement;
 import svenmeier.coxswain.gym.Segment;
-import svenmeier.coxswain.gym.Snapshot;
+import svenmeier.coxswain.gym.SnapshotSeries;
+import svenmeier.coxswain.gym.Workout;
 import svenmeier.coxswain.view.BindingDialogFragment;
 import svenmeier.coxswain.view.BindingView;
 import svenmeier.coxswain.view.DashLayout;
@@ -284,16 +284,36 @@ public class WorkoutActivity extends AbstractActivity implements View.OnSystemUi
 	/**
      * Use a previous {@link svenmeier.coxswain.gym.Workout} as a pace boat.
      */
-    private class WorkoutPaceBoat extends MatchLookup<Snapshot> implements DismissablePaceBoat {
+    private class WorkoutPaceBoat implements DismissablePaceBoat, Runnable {
 
-        private List<Snapshot> snapshots = new ArrayList<>();
+        private final Workout pace;
 
-        private int duration;
+        private SnapshotSeries snapshots = new SnapshotSeries();
+
+        /**
+         * Index of first snapshot reaching the current distance.
+         */
+        private int index;
+
+        private boolean dismissed;
 
         protected WorkoutPaceBoat() {
-            super(gym.getSnapshots(gym.pace));
+            this.pace = gym.pace;
 
-            restartLoader(0, WorkoutActivity.this);
+            // lookup in the background
+            gym.lookup(this);
+        }
+
+        @Override
+        public void run() {
+            final SnapshotSeries lookup = gym.getSnapshots(pace).series();
+
+            runOnUiThread(new Runnable() {
+                @Override
+                public void run() {
+                    onLookup(lookup);
+                }
+            });
         }
 
         @Override
@@ -302,61 +322,79 @@ public class WorkoutActivity extends AbstractActivity implements View.OnSystemUi
                 return 0;
             }
 
-            int from = distanceAt(measurement.duration);
-            int to = distanceAt(measurement.duration + 1);
-
-            int paceDistance = from + ((to - from) * (measurement.distance % 1000) / 1000);
+            int paceDistance = distanceAt(measurement.duration * 1000L);
 
             return measurement.distance - paceDistance;
         }
 
-        private int distanceAt(int duration) {
-            // increment by one, because first snapshot is written after one second only
-            int index = duration - 1;
-            if (index < 0) {
-                return 0;
+        /**
+         * Distance of pace at the given offset, interpolated between snapshots.
+         */
+        private int distanceAt(long millis) {
+            int index = snapshots.indexAt(millis);
+
+            int fromOffset = 0;
+            int fromDistance = 0;
+            if (index >= 0) {
+                if (index == snapshots.size() - 1) {
+                    return snapshots.distance[index];
+                }
+
+                fromOffset = snapshots.offset[index];
+                fromDistance = snapshots.distance[index];
             }
 
-            if (index >= snapshots.size()) {
-                index = snapshots.size() - 1;
+            int toOffset = snapshots.offset[index + 1];
+            int toDistance = snapshots.distance[index + 1];
+            if (toOffset <= fromOffset) {
+                return toDistance;
             }
-            return snapshots.get(index).distance.get();
+
+            return fromDistance + (int)((toDistance - fromDistance) * (millis - fromOffset) / (toOffset - fromOffset));
         }
 
         @Override
         public int getDurationDelta(Measurement measurement) {
-            while (this.duration < snapshots.size()) {
-                if (snapshots.get(this.duration).distance.get() >= measurement.distance) {
+            if (snapshots.isEmpty()) {
+                return 0;
+            }
+
+            while (this.index < snapshots.size()) {
+                if (snapshots.distance[this.index] >= measurement.distance) {
                     break;
                 }
 
-                this.duration++;
+                this.index++;
             }
 
-            if (this.duration >= snapshots.size() && this.duration > 0) {
-                Snapshot snapshot = snapshots.get(snapshots.size() - 1);
+            int paceDuration;
+            if (this.index < snapshots.size()) {
+                paceDuration = snapshots.offset[this.index] / 1000;
+            } else {
+                int last = snapshots.size() - 1;
 
-                int distance = snapshot.distance.get();
-                if (distance > 0) {
-                    // estimate duration
-                    this.duration = snapshots.size() * measurement.distance / distance;
+                // estimate duration
+                paceDuration = 0;
+                if (snapshots.distance[last] > 0) {
+                    paceDuration = (int)((long)snapshots.offset[last] * measurement.distance / snapshots.distance[last] / 1000);
                 }
             }
 
-            return measurement.duration - this.duration;
+            return measurement.duration - paceDuration;
         }
 
-        @Override
-        protected void onLookup(List<Snapshot> propoids) {
-            this.snapshots = propoids;
+        protected void onLookup(SnapshotSeries lookup) {
+            if (dismissed) {
+                return;
+            }
 
-            // no updates needed
-            dismiss();
+            this.snapshots = lookup;
+            this.index = 0;
         }
 
         @Override
         public void dismiss() {
-            destroy(0, WorkoutActivity.this);
+            dismissed = true;
         }
     }
 
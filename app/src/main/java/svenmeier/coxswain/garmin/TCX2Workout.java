@@ -1,49 +1,113 @@
 package svenmeier.coxswain.garmin;
 
 import android.location.Location;
-import android.util.Pair;
+import android.util.Xml;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
 
 import java.io.IOException;
 import java.io.Reader;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.TimeZone;
+import java.util.Arrays;
 
-import propoid.util.io.XmlNavigator;
-import svenmeier.coxswain.gym.Snapshot;
+import svenmeier.coxswain.gym.SnapshotCodec;
+import svenmeier.coxswain.gym.SnapshotSeries;
 import svenmeier.coxswain.gym.Workout;
 
 /**
- * Converter for {@code TCX} (Training Center XML).
+ * Converter for {@code TCX} (Training Center XML), pulling elements in a single pass.
+ * <p>
+ * Numbers and times are parsed from the text characters of the parser, no strings are
+ * created for trackpoints.
  */
 public class TCX2Workout {
 
-	private final XmlNavigator navigator;
-
-	private SimpleDateFormat dateFormat;
+	private static final long DAY = 24 * 60 * 60 * 1000;
+
+	private static final int OTHER = 0;
+	private static final int ACTIVITY = 1;
+	private static final int LAP = 2;
+	private static final int DISTANCE_METERS = 3;
+	private static final int CALORIES = 4;
+	private static final int TRACKPOINT = 5;
+	private static final int TIME = 6;
+	private static final int POSITION = 7;
+	private static final int LATITUDE_DEGREES = 8;
+	private static final int LONGITUDE_DEGREES = 9;
+	private static final int HEART_RATE_BPM = 10;
+	private static final int VALUE = 11;
+	private static final int CADENCE = 12;
+	private static final int TPX = 13;
+	private static final int SPEED = 14;
+	private static final int LX = 15;
+	private static final int STEPS = 16;
+	private static final int PLAN = 17;
+	private static final int NAME = 18;
+	private static final int TOTAL_TIME_SECONDS = 19;
+
+	/**
+	 * Names of elements of interest, indexed by the constants above.
+	 */
+	private static final String[] ELEMENTS = {null, "Activity", "Lap", "DistanceMeters", "Calories",
+			"Trackpoint", "Time", "Position", "LatitudeDegrees", "LongitudeDegrees", "HeartRateBpm",
+			"Value", "Cadence", "TPX", "Speed", "LX", "Steps", "Plan", "Name", "TotalTimeSeconds"};
+
+	private final XmlPullParser parser;
+
+	private final int[] startAndLength = new int[2];
+
+	/**
+	 * Text of the current element.
+	 */
+	private char[] text = new char[64];
+
+	private int textLength;
+
+	/**
+	 * Open elements, indexed by depth.
+	 */
+	private int[] elements = new int[32];
+
+	/**
+	 * Values of the current trackpoint in order of {@link SnapshotCodec}.
+	 */
+	private final int[] values = new int[SnapshotCodec.VALUES];
+
+	private int laps;
+
+	/**
+	 * Sum of total time of all laps in milliseconds, {@code -1} if not present.
+	 */
+	private long totalTime = -1;
+
+	/**
+	 * Has the location been read from a position already.
+	 */
+	private boolean located;
 
 	private Workout workout;
 
-	private List<Snapshot> snapshots;
+	private SnapshotSeries series;
 
 	private String programName;
 
 	public TCX2Workout(Reader reader) throws IOException {
-		navigator = new XmlNavigator(reader);
-
-		// time for trackpoints must be in UTC
-		dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-		dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+		try {
+			parser = Xml.newPullParser();
+			parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, true);
+			parser.setInput(reader);
+		} catch (XmlPullParserException ex) {
+			throw new IOException(ex);
+		}
 	}
 
 	public Workout getWorkout() {
 		return workout;
 	}
 
-	public List<Snapshot> getSnapshots() {
-		return snapshots;
+	public SnapshotSeries getSeries() {
+		return series;
 	}
 
 	public String getProgramName() {
@@ -51,107 +115,381 @@ public class TCX2Workout {
 	}
 
 	public TCX2Workout workout() throws IOException, ParseException {
-		if (navigator.descent("Activity") == false) {
-			throw new ParseException("<Activity> missing", navigator.offset());
+		series = new SnapshotSeries(1024);
+
+		try {
+			pull();
+		} catch (XmlPullParserException ex) {
+			throw new ParseException(ex.getMessage(), offset());
 		}
 
-		this.workout = new Workout();
+		if (workout == null) {
+			throw new ParseException("<Activity> missing", offset());
+		}
+		if (laps == 0) {
+			throw new ParseException("<Lap> missing", offset());
+		}
 
-		if (navigator.descent("Lap") == false) {
-			throw new ParseException("<Lap> missing", navigator.offset());
+		if (totalTime == -1) {
+			// fall back to last trackpoint
+			workout.duration.set(series.isEmpty() ? 0 : series.offset[series.size() - 1] / 1000);
+		} else {
+			workout.duration.set((int)((totalTime + 500) / 1000));
 		}
 
-		workout.start.set(dateFormat.parse(navigator.getAttributeValue("StartTime")).getTime());
+		return this;
+	}
 
-		workout.duration.set(Integer.parseInt(navigator.getText("TotalTimeSeconds")));
-		workout.distance.set(Integer.parseInt(navigator.getText("DistanceMeters")));
-		workout.energy.set(Integer.parseInt(navigator.getText("Calories")));
+	/**
+	 * Pull all events up to the end of the first activity.
+	 */
+	private void pull() throws IOException, XmlPullParserException, ParseException {
+		int event = parser.getEventType();
+		while (event != XmlPullParser.END_DOCUMENT) {
+			int depth = parser.getDepth();
+
+			if (event == XmlPullParser.START_TAG) {
+				if (depth == elements.length) {
+					elements = Arrays.copyOf(elements, depth * 2);
+				}
+				int element = element(parser.getName());
+				elements[depth] = element;
+
+				textLength = 0;
+				start(element);
+				textLength = 0;
+			} else if (event == XmlPullParser.TEXT) {
+				char[] characters = parser.getTextCharacters(startAndLength);
+				append(characters, startAndLength[0], startAndLength[1]);
+			} else if (event == XmlPullParser.END_TAG) {
+				int element = elements[depth];
+				if (element == ACTIVITY && workout != null) {
+					// first activity only
+					return;
+				}
 
-		this.snapshots = snapshots(workout);
+				end(element, depth > 1 ? elements[depth - 1] : OTHER);
+				textLength = 0;
+			}
 
-		workout.duration.set(snapshots.size());
+			event = parser.next();
+		}
+	}
 
-		if (navigator.descent("Extensions")) {
-			if (navigator.descent("LX")) {
-				workout.strokes.set(Integer.parseInt(navigator.getText("Steps")));
-				navigator.ascent();
-			}
-			navigator.ascent();
+	private void start(int element) throws ParseException {
+		switch (element) {
+			case ACTIVITY:
+				if (workout == null) {
+					workout = new Workout();
+					workout.distance.set(0);
+					workout.energy.set(0);
+					workout.strokes.set(0);
+				}
+				break;
+			case LAP:
+				if (workout != null) {
+					laps++;
+
+					String startTime = parser.getAttributeValue(null, "StartTime");
+					if (laps == 1 && startTime != null) {
+						append(startTime);
+						workout.start.set(time());
+					}
+				}
+				break;
+			case TRACKPOINT:
+				if (workout != null && workout.location.get() == null) {
+					workout.location.set(new Location(""));
+				}
+				break;
 		}
+	}
 
-		navigator.ascent();
+	private void end(int element, int parent) throws ParseException {
+		if (workout == null) {
+			return;
+		}
 
-		training();
+		switch (element) {
+			case TRACKPOINT:
+				series.add(values);
+
+				// keep distance and offset only
+				values[2] = 0;
+				values[3] = 0;
+				values[4] = 0;
+				return;
+			case POSITION:
+				if (parent == TRACKPOINT) {
+					located = true;
+				}
+				return;
+		}
 
-		navigator.ascent();
+		if (blank()) {
+			return;
+		}
 
-		return this;
+		switch (element) {
+			case TOTAL_TIME_SECONDS:
+				if (parent == LAP) {
+					totalTime = Math.max(totalTime, 0) + decimal(3);
+				}
+				break;
+			case DISTANCE_METERS:
+				if (parent == LAP) {
+					workout.distance.set(workout.distance.get() + decimal(0));
+				} else if (parent == TRACKPOINT) {
+					values[0] = decimal(0);
+				}
+				break;
+			case CALORIES:
+				if (parent == LAP) {
+					workout.energy.set(workout.energy.get() + decimal(0));
+				}
+				break;
+			case STEPS:
+				if (parent == LX) {
+					workout.strokes.set(workout.strokes.get() + decimal(0));
+				}
+				break;
+			case TIME:
+				if (parent == TRACKPOINT) {
+					if (workout.start.get() == null) {
+						throw new ParseException("StartTime missing", offset());
+					}
+					values[7] = (int)(time() - workout.start.get());
+				}
+				break;
+			case LATITUDE_DEGREES:
+				if (parent == POSITION && located == false) {
+					workout.location.get().setLatitude(Double.parseDouble(string()));
+				}
+				break;
+			case LONGITUDE_DEGREES:
+				if (parent == POSITION && located == false) {
+					workout.location.get().setLongitude(Double.parseDouble(string()));
+				}
+				break;
+			case VALUE:
+				if (parent == HEART_RATE_BPM) {
+					values[3] = decimal(0);
+				}
+				break;
+			case CADENCE:
+				if (parent == TRACKPOINT) {
+					values[4] = decimal(0);
+				}
+				break;
+			case SPEED:
+				if (parent == TPX) {
+					values[2] = decimal(2);
+				}
+				break;
+			case NAME:
+				if (parent == PLAN) {
+					programName = string();
+				}
+				break;
+		}
 	}
 
-	private void training() throws IOException {
-		if (navigator.descent("Training")) {
-			if (navigator.descent("Plan")) {
-				programName = navigator.getText("Name");
-
-				navigator.ascent();
+	private static int element(String name) {
+		for (int e = 1; e < ELEMENTS.length; e++) {
+			if (ELEMENTS[e].equals(name)) {
+				return e;
 			}
+		}
+		return OTHER;
+	}
+
+	private void append(char[] characters, int start, int length) {
+		if (textLength + length > text.length) {
+			text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + length));
+		}
+		System.arraycopy(characters, start, text, textLength, length);
+		textLength += length;
+	}
 
-			navigator.ascent();
+	private void append(String string) {
+		if (textLength + string.length() > text.length) {
+			text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + string.length()));
+		}
+		string.getChars(0, string.length(), text, textLength);
+		textLength += string.length();
+	}
+
+	private boolean blank() {
+		for (int c = 0; c < textLength; c++) {
+			if (Character.isWhitespace(text[c]) == false) {
+				return false;
+			}
 		}
+		return true;
 	}
 
-	private List<Snapshot> snapshots(Workout workout) throws IOException {
-		List<Snapshot> snapshots = new ArrayList<>();
+	/**
+	 * Parse the text as a decimal number, rounded to the given count of fraction digits.
+	 *
+	 * @return number multiplied by {@code 10^scale}
+	 */
+	private int decimal(int scale) throws ParseException {
+		int c = 0;
+		while (Character.isWhitespace(text[c])) {
+			c++;
+		}
+
+		boolean negative = false;
+		if (text[c] == '-' || text[c] == '+') {
+			negative = text[c] == '-';
+			c++;
+		}
+
+		long value = 0;
+		int digits = 0;
+		while (c < textLength && isDigit(text[c])) {
+			value = value * 10 + (text[c++] - '0');
+			digits++;
+		}
 
-		if (navigator.descent("Track")) {
-			while (navigator.descent("Trackpoint")) {
-				if (snapshots.size() == 0) {
-					workout.location.set(location());
+		int fraction = 0;
+		boolean roundUp = false;
+		if (c < textLength && text[c] == '.') {
+			c++;
+			while (c < textLength && isDigit(text[c])) {
+				if (fraction < scale) {
+					value = value * 10 + (text[c] - '0');
+					fraction++;
+				} else if (fraction == scale) {
+					roundUp = text[c] >= '5';
+					fraction++;
 				}
+				c++;
+				digits++;
+			}
+		}
+
+		while (c < textLength && Character.isWhitespace(text[c])) {
+			c++;
+		}
 
-				snapshots.add(snapshot());
-				navigator.ascent();
+		if (c < textLength) {
+			// exponent or garbage
+			try {
+				return (int)Math.round(Double.parseDouble(string()) * Math.pow(10, scale));
+			} catch (NumberFormatException ex) {
+				throw new ParseException("number expected", offset());
 			}
+		} else if (digits == 0) {
+			throw new ParseException("number expected", offset());
+		}
 
-			navigator.ascent();
+		for (; fraction < scale; fraction++) {
+			value *= 10;
+		}
+		if (roundUp) {
+			value++;
 		}
 
-		return snapshots;
+		return (int)(negative ? -value : value);
 	}
 
-	private Location location() throws IOException {
-		Location location = new Location("");
+	/**
+	 * Parse the text as time, i.e. {@code yyyy-MM-dd'T'HH:mm:ss[.S*][Z|(+|-)HH[[:]mm]]}.
+	 *
+	 * @return milliseconds since epoch
+	 */
+	private long time() throws ParseException {
+		int c = 0;
+		while (c < textLength && Character.isWhitespace(text[c])) {
+			c++;
+		}
 
-		if (navigator.descent("Position")) {
-			location.setLatitude(Double.parseDouble(navigator.getText("LatitudeDegrees")));
-			location.setLatitude(Double.parseDouble(navigator.getText("LongitudeDegrees")));
+		if (textLength - c < 19 || text[c + 4] != '-' || text[c + 7] != '-' || text[c + 10] != 'T' || text[c + 13] != ':' || text[c + 16] != ':') {
+			throw new ParseException("time expected", offset());
+		}
 
-			navigator.ascent();
+		int year = digits(c, 4);
+		int month = digits(c + 5, 2);
+		int dayOfMonth = digits(c + 8, 2);
+		int hours = digits(c + 11, 2);
+		int minutes = digits(c + 14, 2);
+		int seconds = digits(c + 17, 2);
+		c += 19;
+
+		int millis = 0;
+		if (c < textLength && text[c] == '.') {
+			c++;
+			for (int scale = 100; c < textLength && isDigit(text[c]); c++, scale /= 10) {
+				millis += (text[c] - '0') * scale;
+			}
 		}
 
-		return location;
-	}
+		long time = daysFromCivil(year, month, dayOfMonth) * DAY + ((hours * 60 + minutes) * 60 + seconds) * 1000L + millis;
 
-	private Snapshot snapshot() throws IOException {
-		Snapshot snapshot = new Snapshot();
+		if (c < textLength && (text[c] == '+' || text[c] == '-')) {
+			boolean east = text[c] == '+';
+			if (textLength - c < 3) {
+				throw new ParseException("time zone expected", offset());
+			}
+			int zone = digits(c + 1, 2) * 60;
+			c += 3;
 
-		snapshot.distance.set(Integer.parseInt(navigator.getText("DistanceMeters")));
+			if (c < textLength && text[c] == ':') {
+				c++;
+			}
+			if (c < textLength && isDigit(text[c])) {
+				if (textLength - c < 2) {
+					throw new ParseException("time zone expected", offset());
+				}
+				zone += digits(c, 2);
+			}
 
-		if (navigator.descent("HeartRateBpm")) {
-			snapshot.pulse.set(Integer.parseInt(navigator.getText("Value")));
-			navigator.ascent();
+			zone *= 60 * 1000;
+			time += east ? -zone : zone;
 		}
 
-		snapshot.strokeRate.set(Integer.parseInt(navigator.getText("Cadence")));
+		return time;
+	}
 
-		if (navigator.descent("Extensions")) {
-			if (navigator.descent("TPX")) {
-				snapshot.speed.set(Math.round(Float.parseFloat(navigator.getText("Speed")) * 100));
-				navigator.ascent();
+	private int digits(int from, int count) throws ParseException {
+		int value = 0;
+		for (int c = from; c < from + count; c++) {
+			if (isDigit(text[c]) == false) {
+				throw new ParseException("digit expected", offset());
 			}
-			navigator.ascent();
+			value = value * 10 + (text[c] - '0');
 		}
+		return value;
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * Days since epoch of a civil date, see Howard Hinnant's {@code days_from_civil}.
+	 */
+	private static long daysFromCivil(int year, int month, int dayOfMonth) {
+		long y = month <= 2 ? year - 1 : year;
+		long era = (y >= 0 ? y : y - 399) / 400;
+		long yoe = y - era * 400;
+		long doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + dayOfMonth - 1;
+		long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+		return era * 146097 + doe - 719468;
+	}
+
+	/**
+	 * The trimmed text, entities are already resolved by the parser.
+	 */
+	private String string() {
+		return new String(text, 0, textLength).trim();
+	}
 
-		return snapshot;
+	/**
+	 * Line of the parser, as there is no offset of characters.
+	 */
+	private int offset() {
+		return parser.getLineNumber();
 	}
 }
@@ -0,0 +1,264 @@
+package svenmeier.coxswain.garmin;
+
+import android.Manifest;
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Environment;
+import android.os.Handler;
+import android.util.Log;
+import android.widget.Toast;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import propoid.db.aspect.Row;
+import svenmeier.coxswain.Coxswain;
+import svenmeier.coxswain.Gym;
+import svenmeier.coxswain.R;
+import svenmeier.coxswain.gym.Workout;
+import svenmeier.coxswain.io.Export;
+import svenmeier.coxswain.util.PermissionBlock;
+
+/**
+ * Export of all workouts in a range of time into a single zip of {@code TCX} files.
+ * <p>
+ * Workouts are serialized in parallel on a pool sized to the available cores, finished
+ * documents are written into the zip stream as soon as they are complete.
+ */
+public class TcxBatchExport implements Export<Workout> {
+
+	public static final String SUFFIX = ".zip";
+
+	private static final int NOTIFICATION_ID = 2;
+
+	private final Context context;
+
+	private final Handler handler = new Handler();
+
+	private final Gym gym;
+
+	public TcxBatchExport(Context context) {
+		this.context = context;
+
+		this.gym = Gym.instance(context);
+	}
+
+	/**
+	 * Export all workouts of the year of the given workout.
+	 */
+	@Override
+	public void start(Workout workout) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTimeInMillis(workout.start.get());
+		calendar.set(calendar.get(Calendar.YEAR), Calendar.JANUARY, 1, 0, 0, 0);
+		calendar.set(Calendar.MILLISECOND, 0);
+		long from = calendar.getTimeInMillis();
+		calendar.add(Calendar.YEAR, 1);
+		long to = calendar.getTimeInMillis();
+
+		start(from, to);
+	}
+
+	/**
+	 * Export all workouts starting in the given range.
+	 */
+	public void start(long from, long to) {
+		new Writing(from, to);
+	}
+
+	private class Writing extends PermissionBlock implements Runnable {
+
+		private final long from;
+
+		private final long to;
+
+		private final int workers = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+		/**
+		 * Limits documents in memory, waiting to be written into the zip.
+		 */
+		private final Semaphore pending = new Semaphore(workers * 2);
+
+		private final AtomicInteger done = new AtomicInteger();
+
+		private final AtomicBoolean failed = new AtomicBoolean();
+
+		private int total;
+
+		private ZipOutputStream zip;
+
+		private Notification.Builder builder;
+
+		public Writing(long from, long to) {
+			super(context);
+
+			this.from = from;
+			this.to = to;
+
+			acquirePermissions(Manifest.permission.WRITE_EXTERNAL_STORAGE);
+		}
+
+		@Override
+		protected void onRejected() {
+			toast(context.getString(R.string.garmin_export_failed));
+		}
+
+		@Override
+		protected void onPermissionsApproved() {
+			new Thread(this).start();
+		}
+
+		@Override
+		public void run() {
+			List<Workout> workouts = gym.getAllWorkouts(from, to).list();
+			total = workouts.size();
+
+			builder = new Notification.Builder(context)
+					.setSmallIcon(R.mipmap.ic_launcher)
+					.setContentTitle(context.getString(R.string.garmin_export_batch_starting))
+					.setOngoing(true);
+			progress(0);
+
+			File dir = Environment.getExternalStoragePublicDirectory(Coxswain.TAG);
+			dir.mkdirs();
+			dir.setReadable(true, false);
+
+			File file = new File(dir, getFileName());
+			try {
+				write(file, workouts);
+			} catch (Exception e) {
+				Log.e(Coxswain.TAG, "export failed", e);
+				failed.set(true);
+			}
+
+			NotificationManager notificationManager = (NotificationManager)context.getSystemService(Context.NOTIFICATION_SERVICE);
+			notificationManager.cancel(NOTIFICATION_ID);
+
+			if (failed.get()) {
+				// do not leave a partial zip behind
+				file.delete();
+
+				toast(context.getString(R.string.garmin_export_failed));
+				return;
+			}
+
+			// input media so file can be found via MTB
+			context.sendBroadcast(new Intent(Intent.ACTION_MEDIA_SCANNER_SCAN_FILE, Uri.fromFile(file)));
+
+			toast(String.format(context.getString(R.string.garmin_export_batch_finished), total, file.getAbsolutePath()));
+		}
+
+		private void write(File file, List<Workout> workouts) throws IOException, InterruptedException {
+			OutputStream output = new FileOutputStream(file);
+			try {
+				zip = new ZipOutputStream(output);
+
+				ExecutorService executor = Executors.newFixedThreadPool(workers);
+				try {
+					for (final Workout workout : workouts) {
+						pending.acquire();
+						if (failed.get()) {
+							break;
+						}
+
+						executor.execute(new Runnable() {
+							@Override
+							public void run() {
+								try {
+									serialize(workout);
+								} catch (Exception e) {
+									Log.e(Coxswain.TAG, "export failed", e);
+									failed.set(true);
+								} finally {
+									pending.release();
+								}
+							}
+						});
+					}
+				} finally {
+					executor.shutdown();
+					executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+				}
+
+				zip.finish();
+			} finally {
+				output.close();
+			}
+		}
+
+		/**
+		 * Serialize a single workout - called on a worker.
+		 */
+		private void serialize(Workout workout) throws IOException {
+			ByteArrayOutputStream document = new ByteArrayOutputStream();
+			new Workout2TCX(document).document(workout, gym.getSnapshots(workout));
+
+			synchronized (zip) {
+				zip.putNextEntry(new ZipEntry(getEntryName(workout)));
+				document.writeTo(zip);
+				zip.closeEntry();
+			}
+
+			progress(done.incrementAndGet());
+		}
+
+		/**
+		 * Show aggregate progress, updated on each percent only.
+		 */
+		private void progress(int done) {
+			if (total > 0 && done > 0 && done < total && (done * 100 / total) == ((done - 1) * 100 / total)) {
+				return;
+			}
+
+			synchronized (builder) {
+				builder.setContentText(String.format(context.getString(R.string.garmin_export_batch_progress), done, total));
+				builder.setProgress(total, done, false);
+
+				NotificationManager notificationManager = (NotificationManager)context.getSystemService(Context.NOTIFICATION_SERVICE);
+				notificationManager.notify(NOTIFICATION_ID, builder.build());
+			}
+		}
+
+		/**
+		 * Name of the entry of a workout, made unique with its id as workouts may share
+		 * start and program.
+		 */
+		private String getEntryName(Workout workout) {
+			String name = TcxExport.getFileName(workout);
+
+			return name.substring(0, name.length() - TcxExport.SUFFIX.length()) + "_" + Row.getID(workout) + TcxExport.SUFFIX;
+		}
+
+		private String getFileName() {
+			SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+
+			return format.format(from) + "_" + format.format(to - 1) + SUFFIX;
+		}
+	}
+
+	private void toast(final String text) {
+		handler.post(new Runnable() {
+			@Override
+			public void run() {
+				Toast.makeText(context, text, Toast.LENGTH_LONG).show();
+			}
+		});
+	}
+}
@@ -0,0 +1,207 @@
+package svenmeier.coxswain.garmin;
+
+import android.Manifest;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.util.Log;
+import android.widget.Toast;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import svenmeier.coxswain.Coxswain;
+import svenmeier.coxswain.Gym;
+import svenmeier.coxswain.R;
+import svenmeier.coxswain.gym.ImportedWorkout;
+import svenmeier.coxswain.util.PermissionBlock;
+
+/**
+ * Import of many {@code TCX} files, e.g. all files in a folder.
+ * <p>
+ * Files are parsed concurrently on a pool sized to the available cores, parsed workouts wait
+ * in a bounded queue until they are added to the gym in groups, each in a single transaction.
+ */
+public class TcxBulkImport {
+
+	/**
+	 * Workouts added in a single transaction.
+	 */
+	private static final int GROUP = 16;
+
+	/**
+	 * Marker for a file that could not be parsed.
+	 */
+	private static final ImportedWorkout FAILED = new ImportedWorkout(null, null, null);
+
+	private final Context context;
+
+	private final Handler handler = new Handler();
+
+	private final Gym gym;
+
+	public TcxBulkImport(Context context) {
+		this.context = context;
+
+		this.gym = Gym.instance(context);
+	}
+
+	/**
+	 * Import the given files or folders.
+	 */
+	public void start(List<Uri> uris) {
+		new Reading(uris);
+	}
+
+	private class Reading extends PermissionBlock implements Runnable {
+
+		private final List<Uri> uris;
+
+		private final int workers = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+		private final BlockingQueue<ImportedWorkout> parsed = new ArrayBlockingQueue<>(workers * 2);
+
+		public Reading(List<Uri> uris) {
+			super(context);
+
+			this.uris = uris;
+
+			for (Uri uri : uris) {
+				if ("file".equals(uri.getScheme())) {
+					acquirePermissions(Manifest.permission.WRITE_EXTERNAL_STORAGE);
+					return;
+				}
+			}
+			onPermissionsApproved();
+		}
+
+		@Override
+		protected void onRejected() {
+			toast(context.getString(R.string.garmin_import_failed));
+		}
+
+		@Override
+		protected void onPermissionsApproved() {
+			new Thread(this).start();
+		}
+
+		@Override
+		public void run() {
+			List<Uri> files = files();
+
+			toast(String.format(context.getString(R.string.garmin_import_bulk_starting), files.size()));
+
+			ExecutorService executor = Executors.newFixedThreadPool(workers);
+			for (final Uri file : files) {
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						ImportedWorkout imported;
+						try {
+							imported = parse(file);
+						} catch (Exception e) {
+							Log.e(Coxswain.TAG, "import failed " + file, e);
+							imported = FAILED;
+						}
+
+						try {
+							parsed.put(imported);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+					}
+				});
+			}
+			executor.shutdown();
+
+			int added = 0;
+			int failed = 0;
+			try {
+				List<ImportedWorkout> group = new ArrayList<>(GROUP);
+				for (int f = 0; f < files.size(); f++) {
+					ImportedWorkout imported = parsed.take();
+					if (imported == FAILED) {
+						failed++;
+					} else {
+						group.add(imported);
+					}
+
+					if (group.size() == GROUP || (f == files.size() - 1 && group.isEmpty() == false)) {
+						added += gym.add(group);
+						group.clear();
+					}
+				}
+			} catch (Exception e) {
+				Log.e(Coxswain.TAG, "import failed", e);
+				executor.shutdownNow();
+				toast(context.getString(R.string.garmin_import_failed));
+				return;
+			}
+
+			int duplicates = files.size() - failed - added;
+			toast(String.format(context.getString(R.string.garmin_import_bulk_finished), added, duplicates, failed));
+		}
+
+		/**
+		 * All {@code TCX} files, folders are expanded.
+		 */
+		private List<Uri> files() {
+			List<Uri> files = new ArrayList<>();
+
+			for (Uri uri : uris) {
+				if ("file".equals(uri.getScheme()) && new File(uri.getPath()).isDirectory()) {
+					File[] children = new File(uri.getPath()).listFiles();
+					if (children == null) {
+						continue;
+					}
+					Arrays.sort(children);
+					for (File child : children) {
+						if (child.isFile() && child.getName().toLowerCase().endsWith(TcxExport.SUFFIX)) {
+							files.add(Uri.fromFile(child));
+						}
+					}
+				} else {
+					files.add(uri);
+				}
+			}
+
+			return files;
+		}
+
+		/**
+		 * Parse a single file - called on a worker.
+		 */
+		private ImportedWorkout parse(Uri uri) throws IOException, ParseException {
+			TCX2Workout tcx2Workout;
+
+			Reader reader = new InputStreamReader(context.getContentResolver().openInputStream(uri), "UTF-8");
+			try {
+				tcx2Workout = new TCX2Workout(reader);
+				tcx2Workout.workout();
+			} finally {
+				reader.close();
+			}
+
+			return new ImportedWorkout(tcx2Workout.getProgramName(), tcx2Workout.getWorkout(), tcx2Workout.getSeries());
+		}
+	}
+
+	private void toast(final String text) {
+		handler.post(new Runnable() {
+			@Override
+			public void run() {
+				Toast.makeText(context, text, Toast.LENGTH_LONG).show();
+			}
+		});
+	}
+}
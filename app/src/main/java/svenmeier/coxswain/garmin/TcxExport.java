@@ -9,19 +9,17 @@ import android.os.Handler;
 import android.util.Log;
 import android.widget.Toast;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.Writer;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 
-import propoid.db.Match;
 import svenmeier.coxswain.Coxswain;
 import svenmeier.coxswain.io.Export;
 import svenmeier.coxswain.Gym;
 import svenmeier.coxswain.R;
-import svenmeier.coxswain.gym.Snapshot;
+import svenmeier.coxswain.gym.Snapshots;
 import svenmeier.coxswain.gym.Workout;
 import svenmeier.coxswain.util.PermissionBlock;
 
@@ -80,7 +78,7 @@ public class TcxExport implements Export<Workout> {
 		public void run() {
 			toast(context.getString(R.string.garmin_export_starting));
 
-			Match<Snapshot> snapshots = gym.getSnapshots(workout);
+			Snapshots snapshots = gym.getSnapshots(workout);
 
 			File file;
 			try {
@@ -111,35 +109,38 @@ public class TcxExport implements Export<Workout> {
 			context.startActivity(Intent.createChooser(shareIntent, context.getString(R.string.garmin_export)));
 		}
 
-		public String getFileName() {
-			StringBuilder name = new StringBuilder();
-
-			name.append(new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(workout.start.get()));
-			name.append('_');
-			name.append(workout.programName("UNKNOWN").replaceAll("[_\\/]", " "));
-			name.append(SUFFIX);
-
-			return name.toString();
-		}
-
-		private File write(Match<Snapshot> snapshots) throws IOException {
+		private File write(Snapshots snapshots) throws IOException {
 			File dir = Environment.getExternalStoragePublicDirectory(Coxswain.TAG);
 			dir.mkdirs();
 			dir.setReadable(true, false);
 
-			File file = new File(dir, getFileName());
+			File file = new File(dir, getFileName(workout));
 
-			Writer writer = new BufferedWriter(new FileWriter(file));
+			OutputStream output = new FileOutputStream(file);
 			try {
-				new Workout2TCX(writer).document(workout, snapshots.list());
+				new Workout2TCX(output).document(workout, snapshots);
 			} finally {
-				writer.close();
+				output.close();
 			}
 
 			return file;
 		}
 	}
 
+	/**
+	 * Name of the file for a workout.
+	 */
+	static String getFileName(Workout workout) {
+		StringBuilder name = new StringBuilder();
+
+		name.append(new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(workout.start.get()));
+		name.append('_');
+		name.append(workout.programName("UNKNOWN").replaceAll("[_\\/]", " "));
+		name.append(SUFFIX);
+
+		return name.toString();
+	}
+
 	private void toast(final String text) {
 		handler.post(new Runnable() {
 			@Override
@@ -4,20 +4,16 @@ import android.content.Context;
 import android.net.Uri;
 import android.os.Handler;
 import android.util.Log;
-import android.util.Pair;
 import android.widget.Toast;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.text.ParseException;
-import java.util.List;
 
 import svenmeier.coxswain.Coxswain;
 import svenmeier.coxswain.Gym;
 import svenmeier.coxswain.R;
-import svenmeier.coxswain.gym.Snapshot;
 import svenmeier.coxswain.gym.Workout;
 import svenmeier.coxswain.io.Import;
 
@@ -57,22 +53,30 @@ public class TcxImport implements Import<Workout> {
 		public void run() {
 			toast(context.getString(R.string.garmin_import_starting));
 
+			boolean added;
 			try {
-				write();
+				added = write();
 			} catch (Exception e) {
 				Log.e(Coxswain.TAG, "export failed", e);
 				toast(context.getString(R.string.garmin_import_failed));
 				return;
 			}
 
-			toast(String.format(context.getString(R.string.garmin_import_finished)));
+			if (added) {
+				toast(String.format(context.getString(R.string.garmin_import_finished)));
+			} else {
+				toast(context.getString(R.string.garmin_import_duplicate));
+			}
 		}
 
-		private void write() throws IOException, ParseException {
+		/**
+		 * @return {@code false} if the workout is already present
+		 */
+		private boolean write() throws IOException, ParseException {
 
 			TCX2Workout tcx2Workout;
 
-			Reader reader = new BufferedReader(new InputStreamReader(context.getContentResolver().openInputStream(uri)));
+			Reader reader = new InputStreamReader(context.getContentResolver().openInputStream(uri), "UTF-8");
 			try {
 				tcx2Workout = new TCX2Workout(reader);
 				tcx2Workout.workout();
@@ -80,7 +84,7 @@ public class TcxImport implements Import<Workout> {
 				reader.close();
 			}
 
-			gym.add(tcx2Workout.getProgramName(), tcx2Workout.getWorkout(), tcx2Workout.getSnapshots());
+			return gym.add(tcx2Workout.getProgramName(), tcx2Workout.getWorkout(), tcx2Workout.getSeries());
 		}
 	}
 
@@ -1,190 +1,376 @@
 package svenmeier.coxswain.garmin;
 
 import android.location.Location;
-import android.util.Xml;
-
-import org.xmlpull.v1.XmlSerializer;
 
 import java.io.IOException;
-import java.io.Writer;
-import java.text.SimpleDateFormat;
-import java.util.List;
-import java.util.TimeZone;
+import java.io.OutputStream;
 
-import svenmeier.coxswain.gym.Snapshot;
+import svenmeier.coxswain.gym.SnapshotChunk;
+import svenmeier.coxswain.gym.SnapshotSeries;
+import svenmeier.coxswain.gym.Snapshots;
 import svenmeier.coxswain.gym.Workout;
 
 /**
- * Converter for {@code TCX} (Training Center XML).
+ * Converter for {@code TCX} (Training Center XML), streaming compact UTF-8.
  */
 public class Workout2TCX {
 
-	private XmlSerializer serializer;
+	private static final int BUFFER_SIZE = 64 * 1024;
 
-	private SimpleDateFormat dateFormat;
+	private static final long DAY = 24 * 60 * 60 * 1000;
 
-	public Workout2TCX(Writer writer) throws IOException {
-		serializer = Xml.newSerializer();
-		serializer.setFeature("http://xmlpull.org/v1/doc/features.html#indent-output", true);
-		serializer.setOutput(writer);
+	private final OutputStream output;
 
-		// time for trackpoints must be in UTC
-		dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-		dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
-	}
+	private final byte[] buffer = new byte[BUFFER_SIZE];
 
-	public void document(Workout workout, List<Snapshot> snaoshots) throws IOException {
-		serializer.startDocument("UTF-8", true);
+	private int length;
 
-		trainingCenterDatabase(workout, snaoshots);
+	/**
+	 * Day of {@link #date}, days since epoch.
+	 */
+	private long day = Long.MIN_VALUE;
 
-		serializer.endDocument();
-	}
+	/**
+	 * Formatted date of {@link #day}, i.e. {@code yyyy-MM-dd}.
+	 */
+	private final byte[] date = new byte[10];
 
-	private void trainingCenterDatabase(Workout workout, List<Snapshot> snapshots) throws IOException {
+	/**
+	 * Is the next trackpoint the first one.
+	 */
+	private boolean first;
 
-		serializer.startTag(null, "TrainingCenterDatabase");
-		serializer.attribute(null, "xmlns", "http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v2");
+	public Workout2TCX(OutputStream output) {
+		this.output = output;
+	}
 
-		activities(workout, snapshots);
+	/**
+	 * Write a workout with all its snapshots, decoded chunk by chunk.
+	 */
+	public void document(Workout workout, Snapshots snapshots) throws IOException {
+		SnapshotSeries series = new SnapshotSeries(0);
+
+		startDocument(workout);
+		if (snapshots.size() > 0) {
+			start("Track");
+			for (SnapshotChunk chunk : snapshots.chunks()) {
+				series.clear();
+				chunk.decodeInto(series);
+
+				trackpoints(workout, series);
+			}
+			end("Track");
+		}
+		endDocument(workout);
+	}
 
-		serializer.endTag(null, serializer.getName());
+	/**
+	 * Write a workout with the given snapshots.
+	 */
+	public void document(Workout workout, SnapshotSeries snapshots) throws IOException {
+		startDocument(workout);
+		if (snapshots.isEmpty() == false) {
+			start("Track");
+			trackpoints(workout, snapshots);
+			end("Track");
+		}
+		endDocument(workout);
 	}
 
-	private void activities(Workout workout, List<Snapshot> snapshots) throws IOException {
-		serializer.startTag(null, "Activities");
+	private void startDocument(Workout workout) throws IOException {
+		write("<?xml version='1.0' encoding='UTF-8' standalone='yes' ?>");
 
-		activity(workout, snapshots);
+		write("<TrainingCenterDatabase xmlns=\"http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v2\">");
+		start("Activities");
+		write("<Activity Sport=\"Other\">");
 
-		serializer.endTag(null, serializer.getName());
-	}
+		start("Id");
+		time(workout.start.get());
+		end("Id");
 
-	private void activity(Workout workout, List<Snapshot> snapshots) throws IOException {
-		serializer.startTag(null, "Activity");
-		serializer.attribute(null, "Sport", "Other");
+		write("<Lap StartTime=\"");
+		time(workout.start.get());
+		write("\">");
 
-		tag(null, "Id", dateFormat.format(workout.start.get()));
+		tag("TotalTimeSeconds", workout.duration.get());
+		tag("DistanceMeters", workout.distance.get());
+		tag("Calories", workout.energy.get());
+		tag("Intensity", "Active");
+		tag("TriggerMethod", "Manual");
 
-		lap(workout, snapshots);
+		first = true;
+	}
 
-		tag(null, "Notes", "Created by Coxswain");
+	private void endDocument(Workout workout) throws IOException {
+		start("Extensions");
+		write("<LX xmlns=\"http://www.garmin.com/xmlschemas/ActivityExtension/v2\">");
+		tag("Steps", workout.strokes.get());
+		end("LX");
+		end("Extensions");
 
-		training(workout);
+		end("Lap");
 
-		serializer.endTag(null, serializer.getName());
-	}
+		tag("Notes", "Created by Coxswain");
 
-	private void training(Workout workout) throws IOException {
-		serializer.startTag(null, "Training");
-		serializer.attribute(null, "VirtualPartner", "true");
+		write("<Training VirtualPartner=\"true\">");
+		write("<Plan Type=\"Workout\" IntervalWorkout=\"true\">");
+		start("Name");
+		text(workout.programName("-"));
+		end("Name");
+		end("Plan");
+		end("Training");
 
-		plan(workout);
+		end("Activity");
+		end("Activities");
+		end("TrainingCenterDatabase");
 
-		serializer.endTag(null, serializer.getName());
+		flush();
 	}
 
-	private void plan(Workout workout) throws IOException {
-		serializer.startTag(null, "Plan");
-
-		serializer.attribute(null, "Type", "Workout");
-		serializer.attribute(null, "IntervalWorkout", "true");
+	private void trackpoints(Workout workout, SnapshotSeries snapshots) throws IOException {
+		long start = workout.start.get();
 
-		tag(null, "Name", workout.programName("-"));
+		for (int index = 0; index < snapshots.size(); index++) {
+			start("Trackpoint");
 
-		serializer.endTag(null, serializer.getName());
-	}
+			start("Time");
+			time(start + snapshots.offset[index]);
+			end("Time");
 
-	private void lap(Workout workout, List<Snapshot> snapshots) throws IOException {
-		serializer.startTag(null, "Lap");
+			if (first) {
+				position(workout.location.get());
+				first = false;
+			}
 
-		serializer.attribute(null, "StartTime", dateFormat.format(workout.start.get()));
+			tag("DistanceMeters", snapshots.distance[index]);
 
-		tag(null, "TotalTimeSeconds", workout.duration.get().toString());
-		tag(null, "DistanceMeters", workout.distance.get().toString());
-		tag(null, "Calories", workout.energy.get().toString());
-		tag(null, "Intensity", "Active");
-		tag(null, "TriggerMethod", "Manual");
+			start("HeartRateBpm");
+			tag("Value", snapshots.pulse[index]);
+			end("HeartRateBpm");
 
-		if (snapshots.isEmpty() == false) {
-			track(workout, snapshots);
-		}
+			tag("Cadence", snapshots.strokeRate[index]);
 
-		extension("LX", "Steps", Integer.toString(workout.strokes.get()));
+			start("Extensions");
+			write("<TPX xmlns=\"http://www.garmin.com/xmlschemas/ActivityExtension/v2\">");
+			start("Speed");
+			hundredths(snapshots.speed[index]);
+			end("Speed");
+			end("TPX");
+			end("Extensions");
 
-		serializer.endTag(null, serializer.getName());
+			end("Trackpoint");
+		}
 	}
 
-	private void track(Workout workout, List<Snapshot> snapshots) throws IOException {
-		serializer.startTag(null, "Track");
-
-		for (int index = 0; index < snapshots.size(); index++) {
-			trackpoint(workout, snapshots.get(index), index);
+	private void position(Location location) throws IOException {
+		double latitude = 0d;
+		double longitude = 0d;
+		if (location != null) {
+			latitude = location.getLatitude();
+			longitude = location.getLongitude();
 		}
 
-		serializer.endTag(null, serializer.getName());
+		start("Position");
+		tag("LatitudeDegrees", Double.toString(latitude));
+		tag("LongitudeDegrees", Double.toString(longitude));
+		end("Position");
 	}
 
-	private void trackpoint(Workout workout, Snapshot snapshot, int index) throws IOException {
-		serializer.startTag(null, "Trackpoint");
+	private void tag(String name, String value) throws IOException {
+		start(name);
+		text(value);
+		end(name);
+	}
 
-		tag(null, "Time", dateFormat.format(workout.start.get() + index * 1000));
+	private void tag(String name, int value) throws IOException {
+		start(name);
+		number(value);
+		end(name);
+	}
 
-		if (index == 0) {
-			position(workout.location.get());
-		}
+	private void start(String name) throws IOException {
+		write('<');
+		write(name);
+		write('>');
+	}
 
-		tag(null, "DistanceMeters", snapshot.distance.get().toString());
+	private void end(String name) throws IOException {
+		write('<');
+		write('/');
+		write(name);
+		write('>');
+	}
 
-		heartRateBpm(snapshot.pulse.get());
+	/**
+	 * Write a time in UTC, formatting the date only when the day changes.
+	 */
+	private void time(long millis) throws IOException {
+		long day = floorDiv(millis, DAY);
+		if (day != this.day) {
+			this.day = day;
+			formatDate(day);
+		}
 
-		tag(null, "Cadence", Integer.toString(snapshot.strokeRate.get()));
+		for (byte b : date) {
+			write(b);
+		}
+		write('T');
+
+		int ofDay = (int) (millis - day * DAY);
+		digits(ofDay / 3600000, 2);
+		write(':');
+		digits(ofDay / 60000 % 60, 2);
+		write(':');
+		digits(ofDay / 1000 % 60, 2);
+		write('.');
+		digits(ofDay % 1000, 3);
+		write('Z');
+	}
 
-		extension("TPX", "Speed", Float.toString(snapshot.speed.get() / 100f));
+	/**
+	 * Format days since epoch as a civil date, see Howard Hinnant's {@code civil_from_days}.
+	 */
+	private void formatDate(long days) {
+		long z = days + 719468;
+		long era = floorDiv(z, 146097);
+		long doe = z - era * 146097;
+		long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+		long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+		long mp = (5 * doy + 2) / 153;
+		int dayOfMonth = (int) (doy - (153 * mp + 2) / 5 + 1);
+		int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+		int year = (int) (yoe + era * 400 + (month <= 2 ? 1 : 0));
+
+		put(date, 0, year, 4);
+		date[4] = '-';
+		put(date, 5, month, 2);
+		date[7] = '-';
+		put(date, 8, dayOfMonth, 2);
+	}
 
-		serializer.endTag(null, serializer.getName());
+	private static void put(byte[] bytes, int offset, int value, int count) {
+		for (int d = offset + count - 1; d >= offset; d--) {
+			bytes[d] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
 	}
 
-	private void position(Location location) throws IOException {
-		if (location == null) {
-			location = new Location("");
-			location.setLatitude(0d);
-			location.setLongitude(0d);
+	private static long floorDiv(long x, long y) {
+		long q = x / y;
+		if ((x % y != 0) && ((x < 0) != (y < 0))) {
+			q--;
 		}
+		return q;
+	}
 
-		serializer.startTag(null, "Position");
+	/**
+	 * Write a value with two decimal places, as {@link Float#toString(float)} would for hundredths.
+	 */
+	private void hundredths(int value) throws IOException {
+		if (value < 0) {
+			write('-');
+			value = -value;
+		}
 
-		tag(null, "LatitudeDegrees", Double.toString(location.getLatitude()));
-		tag(null, "LongitudeDegrees", Double.toString(location.getLongitude()));
+		number(value / 100);
+		write('.');
 
-		serializer.endTag(null, serializer.getName());
+		int fraction = value % 100;
+		write((byte) ('0' + fraction / 10));
+		if (fraction % 10 != 0) {
+			write((byte) ('0' + fraction % 10));
+		}
 	}
 
-	private void extension(String extension, String name, String value) throws IOException {
-		serializer.startTag(null, "Extensions");
-
-		serializer.startTag(null, extension);
-		serializer.attribute(null, "xmlns", "http://www.garmin.com/xmlschemas/ActivityExtension/v2");
+	private void number(int value) throws IOException {
+		if (value < 0) {
+			if (value == Integer.MIN_VALUE) {
+				write(Integer.toString(value));
+				return;
+			}
+			write('-');
+			value = -value;
+		}
 
-		tag(null, name, value);
+		int count = 1;
+		for (int rest = value / 10; rest > 0; rest /= 10) {
+			count++;
+		}
+		digits(value, count);
+	}
 
-		serializer.endTag(null, serializer.getName());
+	private void digits(int value, int count) throws IOException {
+		if (length + count > buffer.length) {
+			flush();
+		}
 
-		serializer.endTag(null, serializer.getName());
+		put(buffer, length, value, count);
+		length += count;
 	}
 
-	private void heartRateBpm(int pulse) throws IOException {
-		serializer.startTag(null, "HeartRateBpm");
+	/**
+	 * Write escaped text.
+	 */
+	private void text(String text) throws IOException {
+		for (int c = 0; c < text.length(); c++) {
+			char character = text.charAt(c);
+			switch (character) {
+				case '<':
+					write("&lt;");
+					break;
+				case '>':
+					write("&gt;");
+					break;
+				case '&':
+					write("&amp;");
+					break;
+				default:
+					int codePoint = text.codePointAt(c);
+					write(codePoint);
+					c += Character.charCount(codePoint) - 1;
+			}
+		}
+	}
 
-		tag(null, "Value", Integer.toString(pulse));
+	/**
+	 * Write markup without escaping.
+	 */
+	private void write(String markup) throws IOException {
+		for (int c = 0; c < markup.length(); c++) {
+			write((byte) markup.charAt(c));
+		}
+	}
 
-		serializer.endTag(null, serializer.getName());
+	/**
+	 * Write a code point encoded in UTF-8.
+	 */
+	private void write(int codePoint) throws IOException {
+		if (codePoint < 0x80) {
+			write((byte) codePoint);
+		} else if (codePoint < 0x800) {
+			write((byte) (0xC0 | (codePoint >> 6)));
+			write((byte) (0x80 | (codePoint & 0x3F)));
+		} else if (codePoint < 0x10000) {
+			write((byte) (0xE0 | (codePoint >> 12)));
+			write((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+			write((byte) (0x80 | (codePoint & 0x3F)));
+		} else {
+			write((byte) (0xF0 | (codePoint >> 18)));
+			write((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+			write((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+			write((byte) (0x80 | (codePoint & 0x3F)));
+		}
 	}
 
-	private void tag(String namespace, String name, String value) throws IOException {
-		serializer.startTag(namespace, name);
-		if (value != null) {
-			serializer.text(value);
+	private void write(byte b) throws IOException {
+		if (length == buffer.length) {
+			flush();
 		}
-		serializer.endTag(null, serializer.getName());
+		buffer[length++] = b;
+	}
+
+	private void flush() throws IOException {
+		output.write(buffer, 0, length);
+		length = 0;
 	}
 }
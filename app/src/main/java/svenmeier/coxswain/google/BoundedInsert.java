@@ -0,0 +1,81 @@
+package svenmeier.coxswain.google;
+
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import svenmeier.coxswain.Coxswain;
+
+/**
+ * Inserts of items with bounded concurrency, each insert blocks until it is completed.
+ * <p>
+ * Items are pulled lazily, so no more than the given concurrency are held at any time.
+ */
+public class BoundedInsert<T> {
+
+	/**
+	 * A blocking insert of a single item.
+	 */
+	public interface Inserter<T> {
+
+		/**
+		 * @return {@code false} if failed
+		 */
+		boolean insert(T item) throws Exception;
+	}
+
+	private final int concurrency;
+
+	public BoundedInsert(int concurrency) {
+		if (concurrency <= 0) {
+			throw new IllegalArgumentException("concurrency must be positive");
+		}
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * Insert all items, no further items are inserted after the first failure.
+	 *
+	 * @return {@code true} if all items were inserted successfully
+	 */
+	public boolean insertAll(Iterable<T> items, final Inserter<T> inserter) throws InterruptedException {
+		final Semaphore slots = new Semaphore(concurrency);
+		final AtomicBoolean failed = new AtomicBoolean();
+
+		ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+		try {
+			for (final T item : items) {
+				slots.acquire();
+				if (failed.get()) {
+					break;
+				}
+
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							if (inserter.insert(item) == false) {
+								failed.set(true);
+							}
+						} catch (Exception ex) {
+							Log.e(Coxswain.TAG, "insert failed", ex);
+							failed.set(true);
+						} finally {
+							slots.release();
+						}
+					}
+				});
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+		return failed.get() == false;
+	}
+}
@@ -18,20 +18,24 @@ import com.google.android.gms.fitness.data.DataSet;
 import com.google.android.gms.fitness.data.Session;
 import com.google.android.gms.fitness.request.SessionInsertRequest;
 
-import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import svenmeier.coxswain.Coxswain;
 import svenmeier.coxswain.io.Export;
 import svenmeier.coxswain.Gym;
 import svenmeier.coxswain.R;
-import svenmeier.coxswain.gym.Snapshot;
+import svenmeier.coxswain.gym.SnapshotSeries;
 import svenmeier.coxswain.gym.Workout;
 
 /**
  */
 public class FitExport implements Export<Workout> {
 
+	/**
+	 * Concurrent inserts of data sets.
+	 */
+	private static final int INSERTS = 4;
+
 	private Context context;
 
 	private Handler handler = new Handler();
@@ -121,7 +125,7 @@ public class FitExport implements Export<Workout> {
 		public void run() {
 			toast(context.getString(R.string.googlefit_export_starting));
 
-			List<Snapshot> snapshots = gym.getSnapshots(workout).list();
+			SnapshotSeries snapshots = gym.getSnapshots(workout).series();
 			try {
 				Workout2Fit workout2Fit = new Workout2Fit();
 
@@ -138,19 +142,30 @@ public class FitExport implements Export<Workout> {
 					return;
 				}
 
-				for (DataSet dataSet : workout2Fit.dataSets(workout, snapshots)) {
-					status = Fitness.HistoryApi.insertData(client, dataSet).await(1, TimeUnit.MINUTES);
-					if (status.isSuccess() == false) {
-						Log.e(Coxswain.TAG, "insert dataset failed " + status);
-						toast(context.getString(R.string.googlefit_export_failed));
-						return;
-					}
+				boolean inserted;
+				try {
+					inserted = new BoundedInsert<DataSet>(INSERTS).insertAll(workout2Fit.dataSets(workout, snapshots), new BoundedInsert.Inserter<DataSet>() {
+						@Override
+						public boolean insert(DataSet dataSet) {
+							Status result = Fitness.HistoryApi.insertData(client, dataSet).await(1, TimeUnit.MINUTES);
+							if (result.isSuccess() == false) {
+								Log.e(Coxswain.TAG, "insert dataset failed " + result);
+								return false;
+							}
+							return true;
+						}
+					});
+				} catch (InterruptedException e) {
+					inserted = false;
+				}
+
+				if (inserted == false) {
+					toast(context.getString(R.string.googlefit_export_failed));
+					return;
 				}
 
 				toast(context.getString(R.string.googlefit_export_finished));
 			} finally {
-				snapshots.clear();
-
 				client.disconnect();
 			}
 		}
@@ -12,17 +12,23 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
 import svenmeier.coxswain.BuildConfig;
-import svenmeier.coxswain.gym.Snapshot;
+import svenmeier.coxswain.gym.SnapshotSeries;
 import svenmeier.coxswain.gym.Workout;
 
 /**
  */
 public class Workout2Fit {
 
+	/**
+	 * Maximum count of data points in a single data set.
+	 */
+	static final int MAX_DATAPOINTS = 1000;
+
 	private SimpleDateFormat dateFormat;
 
 	public Workout2Fit() {
@@ -45,30 +51,41 @@ public class Workout2Fit {
 				.build();
 	}
 
-	public Iterable<DataSet> dataSets(final Workout workout, final List<Snapshot> snapshots) {
+	/**
+	 * Data sets of a workout, snapshots are split into chunks each small enough for a
+	 * single insert.
+	 */
+	public Iterable<DataSet> dataSets(final Workout workout, final SnapshotSeries snapshots) {
+		final List<Mapper> mappers = new ArrayList<>();
+		mappers.add(new AggregateDistanceDelta());
+		mappers.add(new AggregateCaloriesExpended());
+		mappers.add(new Speed());
+		mappers.add(new HeartRateBpm());
+
 		return new Iterable<DataSet>() {
 			@Override
 			public Iterator<DataSet> iterator() {
 				return new Iterator<DataSet>() {
-					private List<Mapper> mappers = new ArrayList<>();
+					private int mapper;
 
-					{
-					    mappers.add(new AggregateDistanceDelta());
-						mappers.add(new AggregateCaloriesExpended());
-						mappers.add(new Speed());
-						mappers.add(new HeartRateBpm());
-					}
+					private int chunk;
 
 					@Override
 					public boolean hasNext() {
-						return mappers.isEmpty() == false;
+						while (mapper < mappers.size() && chunk == mappers.get(mapper).chunks(snapshots)) {
+							mapper++;
+							chunk = 0;
+						}
+						return mapper < mappers.size();
 					}
 
 					@Override
 					public DataSet next() {
-						Mapper mapper = mappers.remove(mappers.size() - 1);
+						if (hasNext() == false) {
+							throw new NoSuchElementException();
+						}
 
-						return mapper.dataSet(workout, snapshots);
+						return mappers.get(mapper).dataSet(workout, snapshots, chunk++);
 					}
 
 					@Override
@@ -82,7 +99,14 @@ public class Workout2Fit {
 
 	private abstract class Mapper {
 
-		public DataSet dataSet(Workout workout, List<Snapshot> snapshots) {
+		/**
+		 * Count of data sets to map into.
+		 */
+		public int chunks(SnapshotSeries snapshots) {
+			return 1;
+		}
+
+		public DataSet dataSet(Workout workout, SnapshotSeries snapshots, int chunk) {
 			DataSource dataSource = new DataSource.Builder()
 					.setType(DataSource.TYPE_RAW)
 					.setDataType(type())
@@ -91,33 +115,37 @@ public class Workout2Fit {
 
 			DataSet dataSet = DataSet.create(dataSource);
 
-			map(dataSet, workout, snapshots);
+			map(dataSet, workout, snapshots, chunk);
 
 			return dataSet;
 		}
 
 		protected abstract DataType type();
 
-		protected abstract void map(DataSet dataSet, Workout workout, List<Snapshot> snapshots);
+		protected abstract void map(DataSet dataSet, Workout workout, SnapshotSeries snapshots, int chunk);
 	}
 
 	private abstract class AbstractSnapshotMapper extends Mapper {
 
-		private static final int MAX_DATAPOINTS = 1000;
+		@Override
+		public int chunks(SnapshotSeries snapshots) {
+			return (snapshots.size() + MAX_DATAPOINTS - 1) / MAX_DATAPOINTS;
+		}
 
 		@Override
-		protected void map(DataSet dataSet, Workout workout, List<Snapshot> snapshots) {
-			for (int index = 0; index < Math.min(snapshots.size(), MAX_DATAPOINTS); index++) {
-				Snapshot snapshot = snapshots.get(index);
+		protected void map(DataSet dataSet, Workout workout, SnapshotSeries snapshots, int chunk) {
+			int from = chunk * MAX_DATAPOINTS;
+			int to = Math.min(snapshots.size(), from + MAX_DATAPOINTS);
 
+			for (int index = from; index < to; index++) {
 				DataPoint point = dataSet.createDataPoint();
-				point.setTimestamp(timestamp(workout, index), TimeUnit.MILLISECONDS);
-				map(snapshot, point);
+				point.setTimestamp(workout.start.get() + snapshots.offset[index], TimeUnit.MILLISECONDS);
+				map(snapshots, index, point);
 				dataSet.add(point);
 			}
 		}
 
-		protected abstract void map(Snapshot snapshot, DataPoint point);
+		protected abstract void map(SnapshotSeries snapshots, int index, DataPoint point);
 	}
 
 	private class Speed extends AbstractSnapshotMapper {
@@ -127,8 +155,8 @@ public class Workout2Fit {
 		}
 
 		@Override
-		public void map(Snapshot snapshot, DataPoint point) {
-			point.getValue(Field.FIELD_SPEED).setFloat(snapshot.speed.get() / 100f);
+		public void map(SnapshotSeries snapshots, int index, DataPoint point) {
+			point.getValue(Field.FIELD_SPEED).setFloat(snapshots.speed[index] / 100f);
 		}
 	}
 
@@ -139,15 +167,15 @@ public class Workout2Fit {
 		}
 
 		@Override
-		public void map(Snapshot snapshot, DataPoint point) {
-			point.getValue(Field.FIELD_BPM).setFloat(snapshot.pulse.get());
+		public void map(SnapshotSeries snapshots, int index, DataPoint point) {
+			point.getValue(Field.FIELD_BPM).setFloat(snapshots.pulse[index]);
 		}
 	}
 
 	private abstract class AbstractWorkoutMapper extends Mapper {
 
 		@Override
-		protected void map(DataSet dataSet, Workout workout, List<Snapshot> snapshots) {
+		protected void map(DataSet dataSet, Workout workout, SnapshotSeries snapshots, int chunk) {
 			DataPoint point = dataSet.createDataPoint();
 			point.setTimeInterval(timestamp(workout, 0), timestamp(workout, workout.duration.get()), TimeUnit.MILLISECONDS);
 			map(workout, point);
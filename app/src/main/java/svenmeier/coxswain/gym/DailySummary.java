@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015 Sven Meier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package svenmeier.coxswain.gym;
+
+import java.util.Calendar;
+
+import propoid.core.Property;
+import propoid.core.Propoid;
+
+/**
+ * Aggregate of all evaluated workouts started on a single day.
+ */
+public class DailySummary extends Propoid {
+
+    /**
+     * Start of the day in local time.
+     */
+    public final Property<Long> day = property();
+
+    public final Property<Integer> count = property();
+
+    public final Property<Integer> duration = property();
+
+    public final Property<Integer> distance = property();
+
+    public final Property<Integer> strokes = property();
+
+    public final Property<Integer> energy = property();
+
+    public DailySummary() {
+    }
+
+    public DailySummary(long day) {
+        this.day.set(day);
+        this.count.set(0);
+        this.duration.set(0);
+        this.distance.set(0);
+        this.strokes.set(0);
+        this.energy.set(0);
+    }
+
+    /**
+     * Add a workout to this summary.
+     */
+    public void add(Workout workout) {
+        count.set(count.get() + 1);
+        duration.set(duration.get() + workout.duration.get());
+        distance.set(distance.get() + workout.distance.get());
+        strokes.set(strokes.get() + workout.strokes.get());
+        energy.set(energy.get() + workout.energy.get());
+    }
+
+    /**
+     * Get the start of the day of the given time.
+     */
+    public static long dayOf(long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * Get the start of the day following the given day.
+     */
+    public static long nextDay(long day) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(day);
+        calendar.add(Calendar.DATE, 1);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2015 Sven Meier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package svenmeier.coxswain.gym;
+
+/**
+ * A workout read from an import, with the name of its program and its snapshots.
+ */
+public class ImportedWorkout {
+
+    public final String programName;
+
+    public final Workout workout;
+
+    public final SnapshotSeries series;
+
+    public ImportedWorkout(String programName, Workout workout, SnapshotSeries series) {
+        this.programName = programName;
+        this.workout = workout;
+        this.series = series;
+    }
+}
@@ -40,6 +40,13 @@ public class Measurement {
     }
 
     public Measurement(Measurement measurement) {
+        set(measurement);
+    }
+
+    /**
+     * Set all values from the given measurement.
+     */
+    public void set(Measurement measurement) {
         this.duration = measurement.duration;
         this.distance = measurement.distance;
         this.strokes = measurement.strokes;
@@ -39,6 +39,11 @@ public class Snapshot extends Propoid {
 
     public final Property<Integer> energy = property();
 
+    /**
+     * Milliseconds since start of workout.
+     */
+    public final Property<Integer> offset = property();
+
     public Snapshot() {
         distance.set(0);
         strokes.set(0);
@@ -47,6 +52,7 @@ public class Snapshot extends Propoid {
         strokeRate.set(0);
         strokeRatio.set(0);
         energy.set(0);
+        offset.set(0);
     }
 
     public Snapshot(Measurement measurement) {
@@ -57,5 +63,6 @@ public class Snapshot extends Propoid {
         strokeRate.set(measurement.strokeRate);
         strokeRatio.set(measurement.strokeRatio);
         energy.set(measurement.energy);
+        offset.set(0);
     }
 }
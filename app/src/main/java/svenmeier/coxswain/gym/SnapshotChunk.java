@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015 Sven Meier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package svenmeier.coxswain.gym;
+
+import java.util.Iterator;
+
+import propoid.core.Property;
+import propoid.core.Propoid;
+
+/**
+ * A chunk of snapshots of a workout, stored compactly in a single blob.
+ *
+ * @see SnapshotCodec
+ */
+public class SnapshotChunk extends Propoid {
+
+    public final Property<Workout> workout = property();
+
+    public final Property<Integer> count = property();
+
+    public final Property<byte[]> data = property();
+
+    public SnapshotChunk() {
+    }
+
+    public SnapshotChunk(Workout workout) {
+        this.workout.set(workout);
+        this.count.set(0);
+        this.data.set(new byte[0]);
+    }
+
+    public Iterator<Snapshot> snapshots() {
+        return new SnapshotCodec.Decoder(data.get(), count.get());
+    }
+
+    public void decodeInto(SnapshotSeries series) {
+        new SnapshotCodec.Decoder(data.get(), count.get()).decodeInto(series);
+    }
+
+    /**
+     * Offset of the first snapshot, decoding it only.
+     *
+     * @return offset, {@code -1} if empty
+     */
+    public int firstOffset() {
+        if (count.get() == 0) {
+            return -1;
+        }
+        return new SnapshotCodec.Decoder(data.get(), 1).next().offset.get();
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2015 Sven Meier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package svenmeier.coxswain.gym;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Compact encoding of snapshots - each snapshot is stored as the zig-zag varint encoded
+ * deltas of its values to the previous snapshot.
+ */
+public class SnapshotCodec {
+
+    /**
+     * Count of values per snapshot.
+     */
+    public static final int VALUES = 8;
+
+    static void toValues(Snapshot snapshot, int[] values) {
+        values[0] = snapshot.distance.get();
+        values[1] = snapshot.strokes.get();
+        values[2] = snapshot.speed.get();
+        values[3] = snapshot.pulse.get();
+        values[4] = snapshot.strokeRate.get();
+        values[5] = snapshot.strokeRatio.get();
+        values[6] = snapshot.energy.get();
+        values[7] = snapshot.offset.get();
+    }
+
+    static Snapshot fromValues(int[] values) {
+        Snapshot snapshot = new Snapshot();
+        snapshot.distance.set(values[0]);
+        snapshot.strokes.set(values[1]);
+        snapshot.speed.set(values[2]);
+        snapshot.pulse.set(values[3]);
+        snapshot.strokeRate.set(values[4]);
+        snapshot.strokeRatio.set(values[5]);
+        snapshot.energy.set(values[6]);
+        snapshot.offset.set(values[7]);
+        return snapshot;
+    }
+
+    /**
+     * Encoder appending snapshots.
+     */
+    public static class Encoder {
+
+        private final Output output = new Output(256);
+
+        private int count;
+
+        private final int[] previous = new int[VALUES];
+
+        private final int[] values = new int[VALUES];
+
+        public int count() {
+            return count;
+        }
+
+        public void append(Snapshot snapshot) {
+            toValues(snapshot, values);
+
+            append();
+        }
+
+        /**
+         * Append a snapshot of a series, without creating a {@link Snapshot}.
+         */
+        public void append(SnapshotSeries series, int index) {
+            series.get(index, values);
+
+            append();
+        }
+
+        private void append() {
+            for (int v = 0; v < VALUES; v++) {
+                int delta = values[v] - previous[v];
+                previous[v] = values[v];
+
+                output.write(delta);
+            }
+
+            count++;
+        }
+
+        public byte[] toBytes() {
+            return output.toBytes();
+        }
+    }
+
+    /**
+     * Decoder of snapshots, each snapshot is decoded on demand only.
+     */
+    public static class Decoder implements Iterator<Snapshot> {
+
+        private final Input input;
+
+        private final int count;
+
+        private int index;
+
+        private final int[] values = new int[VALUES];
+
+        public Decoder(byte[] bytes, int count) {
+            this.input = new Input(bytes);
+            this.count = count;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < count;
+        }
+
+        @Override
+        public Snapshot next() {
+            decode();
+
+            return fromValues(values);
+        }
+
+        /**
+         * Decode all remaining snapshots into the given series.
+         */
+        public void decodeInto(SnapshotSeries series) {
+            while (hasNext()) {
+                decode();
+
+                series.add(values);
+            }
+        }
+
+        private void decode() {
+            if (index == count) {
+                throw new NoSuchElementException();
+            }
+
+            for (int v = 0; v < VALUES; v++) {
+                values[v] += (int)input.read();
+            }
+            index++;
+        }
+    }
+
+    /**
+     * Output of zig-zag varint encoded deltas.
+     */
+    static class Output {
+
+        private byte[] bytes;
+
+        private int length;
+
+        Output(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void write(long delta) {
+            if (length + 10 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+
+            long zigzag = (delta << 1) ^ (delta >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                bytes[length++] = (byte)((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            bytes[length++] = (byte)zigzag;
+        }
+
+        byte[] toBytes() {
+            return Arrays.copyOf(bytes, length);
+        }
+    }
+
+    /**
+     * Input of zig-zag varint encoded deltas.
+     */
+    static class Input {
+
+        private final byte[] bytes;
+
+        private int position;
+
+        Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        boolean hasMore() {
+            return position < bytes.length;
+        }
+
+        long read() {
+            long zigzag = 0;
+            int shift = 0;
+            while (true) {
+                byte b = bytes[position++];
+                zigzag |= (long)(b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+                shift += 7;
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2015 Sven Meier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package svenmeier.coxswain.gym;
+
+import java.util.Arrays;
+
+/**
+ * Minimum, maximum and mean of speed, pulse and stroke rate of snapshots, downsampled into
+ * buckets of increasing duration.
+ * <p>
+ * Snapshots can be added in any order.
+ */
+public class SnapshotPyramid {
+
+    public static final int SPEED = 0;
+
+    public static final int PULSE = 1;
+
+    public static final int STROKE_RATE = 2;
+
+    private static final int VALUES = 3;
+
+    /**
+     * Milliseconds of buckets of each level.
+     */
+    private static final int[] BUCKETS = {1000, 10 * 1000, 60 * 1000, 5 * 60 * 1000};
+
+    private final Level[] levels = new Level[BUCKETS.length];
+
+    private final int[] min = new int[VALUES];
+
+    private final int[] max = new int[VALUES];
+
+    private int count;
+
+    public SnapshotPyramid() {
+        for (int l = 0; l < BUCKETS.length; l++) {
+            levels[l] = new Level(BUCKETS[l]);
+        }
+
+        Arrays.fill(min, Integer.MAX_VALUE);
+        Arrays.fill(max, Integer.MIN_VALUE);
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Add all snapshots of the given series.
+     */
+    public void addAll(SnapshotSeries series) {
+        for (int index = 0; index < series.size(); index++) {
+            add(series.offset[index], series.speed[index], series.pulse[index], series.strokeRate[index]);
+        }
+    }
+
+    public void add(int offset, int speed, int pulse, int strokeRate) {
+        for (Level level : levels) {
+            level.add(offset, speed, pulse, strokeRate);
+        }
+
+        add(SPEED, speed);
+        add(PULSE, pulse);
+        add(STROKE_RATE, strokeRate);
+
+        count++;
+    }
+
+    private void add(int value, int measured) {
+        min[value] = Math.min(min[value], measured);
+        max[value] = Math.max(max[value], measured);
+    }
+
+    /**
+     * Minimum of all snapshots.
+     */
+    public int min(int value) {
+        return min[value];
+    }
+
+    /**
+     * Maximum of all snapshots.
+     */
+    public int max(int value) {
+        return max[value];
+    }
+
+    /**
+     * Get the coarsest level with buckets not exceeding the given duration.
+     *
+     * @param millis milliseconds, e.g. per pixel
+     */
+    public Level level(long millis) {
+        Level level = levels[0];
+        for (Level candidate : levels) {
+            if (candidate.millis <= millis) {
+                level = candidate;
+            }
+        }
+        return level;
+    }
+
+    /**
+     * A level of buckets of equal duration.
+     */
+    public static class Level {
+
+        /**
+         * Milliseconds of each bucket.
+         */
+        public final int millis;
+
+        private int[] counts = new int[0];
+
+        private int[][] mins = new int[VALUES][0];
+
+        private int[][] maxs = new int[VALUES][0];
+
+        private long[][] sums = new long[VALUES][0];
+
+        Level(int millis) {
+            this.millis = millis;
+        }
+
+        void add(int offset, int speed, int pulse, int strokeRate) {
+            int bucket = offset / millis;
+
+            ensureCapacity(bucket + 1);
+
+            int count = counts[bucket]++;
+            addTo(SPEED, bucket, count, speed);
+            addTo(PULSE, bucket, count, pulse);
+            addTo(STROKE_RATE, bucket, count, strokeRate);
+        }
+
+        private void addTo(int value, int bucket, int count, int measured) {
+            if (count == 0) {
+                mins[value][bucket] = measured;
+                maxs[value][bucket] = measured;
+            } else {
+                mins[value][bucket] = Math.min(mins[value][bucket], measured);
+                maxs[value][bucket] = Math.max(maxs[value][bucket], measured);
+            }
+            sums[value][bucket] += measured;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > counts.length) {
+                capacity = Math.max(capacity, counts.length * 2);
+
+                counts = Arrays.copyOf(counts, capacity);
+                for (int value = 0; value < VALUES; value++) {
+                    mins[value] = Arrays.copyOf(mins[value], capacity);
+                    maxs[value] = Arrays.copyOf(maxs[value], capacity);
+                    sums[value] = Arrays.copyOf(sums[value], capacity);
+                }
+            }
+        }
+
+        /**
+         * Aggregate all buckets overlapping the given range.
+         *
+         * @param value one of {@link #SPEED}, {@link #PULSE} or {@link #STROKE_RATE}
+         * @param from milliseconds since start of workout, inclusive
+         * @param to milliseconds since start of workout, exclusive
+         * @param result receives minimum, maximum and mean
+         * @return {@code false} if no snapshot is in range
+         */
+        public boolean aggregate(int value, long from, long to, int[] result) {
+            int first = (int) Math.max(0, from / millis);
+            int last = (int) Math.min(counts.length - 1, (to - 1) / millis);
+
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            long sum = 0;
+            int count = 0;
+            for (int bucket = first; bucket <= last; bucket++) {
+                if (counts[bucket] > 0) {
+                    min = Math.min(min, mins[value][bucket]);
+                    max = Math.max(max, maxs[value][bucket]);
+                    sum += sums[value][bucket];
+                    count += counts[bucket];
+                }
+            }
+
+            if (count == 0) {
+                return false;
+            }
+
+            result[0] = min;
+            result[1] = max;
+            result[2] = (int) (sum / count);
+            return true;
+        }
+    }
+}
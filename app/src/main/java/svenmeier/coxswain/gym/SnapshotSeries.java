@@ -0,0 +1,215 @@
+/*
+ * Copyright 2015 Sven Meier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package svenmeier.coxswain.gym;
+
+import java.util.Arrays;
+
+/**
+ * Snapshots of a workout held in parallel primitive arrays, one per value.
+ * <p>
+ * Arrays may be larger than {@link #size()}, they are replaced when capacity is exceeded.
+ */
+public class SnapshotSeries {
+
+    private int size;
+
+    public int[] distance;
+
+    public int[] strokes;
+
+    public int[] speed;
+
+    public int[] pulse;
+
+    public int[] strokeRate;
+
+    public int[] strokeRatio;
+
+    public int[] energy;
+
+    /**
+     * Milliseconds since start of workout, ascending.
+     */
+    public int[] offset;
+
+    public SnapshotSeries() {
+        this(16);
+    }
+
+    public SnapshotSeries(int capacity) {
+        distance = new int[capacity];
+        strokes = new int[capacity];
+        speed = new int[capacity];
+        pulse = new int[capacity];
+        strokeRate = new int[capacity];
+        strokeRatio = new int[capacity];
+        energy = new int[capacity];
+        offset = new int[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Remove all snapshots, keeping the capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public void add(Snapshot snapshot) {
+        ensureCapacity();
+
+        distance[size] = snapshot.distance.get();
+        strokes[size] = snapshot.strokes.get();
+        speed[size] = snapshot.speed.get();
+        pulse[size] = snapshot.pulse.get();
+        strokeRate[size] = snapshot.strokeRate.get();
+        strokeRatio[size] = snapshot.strokeRatio.get();
+        energy[size] = snapshot.energy.get();
+        offset[size] = snapshot.offset.get();
+
+        size++;
+    }
+
+    /**
+     * Add values in order of {@link SnapshotCodec}.
+     */
+    public void add(int[] values) {
+        ensureCapacity();
+
+        distance[size] = values[0];
+        strokes[size] = values[1];
+        speed[size] = values[2];
+        pulse[size] = values[3];
+        strokeRate[size] = values[4];
+        strokeRatio[size] = values[5];
+        energy[size] = values[6];
+        offset[size] = values[7];
+
+        size++;
+    }
+
+    /**
+     * Get values of a snapshot in order of {@link SnapshotCodec}.
+     */
+    void get(int index, int[] values) {
+        values[0] = distance[index];
+        values[1] = strokes[index];
+        values[2] = speed[index];
+        values[3] = pulse[index];
+        values[4] = strokeRate[index];
+        values[5] = strokeRatio[index];
+        values[6] = energy[index];
+        values[7] = offset[index];
+    }
+
+    /**
+     * Insert all snapshots of another series, which must not overlap with the snapshots
+     * of this series.
+     */
+    public void insert(SnapshotSeries other) {
+        int index = indexAt(other.isEmpty() ? 0 : other.offset[0]) + 1;
+        int count = other.size;
+
+        ensureCapacity(size + count);
+
+        insert(distance, index, other.distance, count);
+        insert(strokes, index, other.strokes, count);
+        insert(speed, index, other.speed, count);
+        insert(pulse, index, other.pulse, count);
+        insert(strokeRate, index, other.strokeRate, count);
+        insert(strokeRatio, index, other.strokeRatio, count);
+        insert(energy, index, other.energy, count);
+        insert(offset, index, other.offset, count);
+
+        size += count;
+    }
+
+    private void insert(int[] values, int index, int[] otherValues, int count) {
+        System.arraycopy(values, index, values, index + count, size - index);
+        System.arraycopy(otherValues, 0, values, index, count);
+    }
+
+    private void ensureCapacity() {
+        ensureCapacity(size + 1);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > distance.length) {
+            int capacity = Math.max(Math.max(16, required), size * 2);
+
+            distance = Arrays.copyOf(distance, capacity);
+            strokes = Arrays.copyOf(strokes, capacity);
+            speed = Arrays.copyOf(speed, capacity);
+            pulse = Arrays.copyOf(pulse, capacity);
+            strokeRate = Arrays.copyOf(strokeRate, capacity);
+            strokeRatio = Arrays.copyOf(strokeRatio, capacity);
+            energy = Arrays.copyOf(energy, capacity);
+            offset = Arrays.copyOf(offset, capacity);
+        }
+    }
+
+    /**
+     * Index of the last snapshot taken at or before the given offset.
+     *
+     * @param millis milliseconds since start of workout
+     * @return index, {@code -1} if no snapshot was taken yet
+     */
+    public int indexAt(long millis) {
+        int low = 0;
+        int high = size - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+
+            if (offset[middle] <= millis) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return high;
+    }
+
+    /**
+     * Minimum of the given values.
+     */
+    public int min(int[] values) {
+        int min = Integer.MAX_VALUE;
+        for (int index = 0; index < size; index++) {
+            min = Math.min(min, values[index]);
+        }
+        return min;
+    }
+
+    /**
+     * Maximum of the given values.
+     */
+    public int max(int[] values) {
+        int max = Integer.MIN_VALUE;
+        for (int index = 0; index < size; index++) {
+            max = Math.max(max, values[index]);
+        }
+        return max;
+    }
+}
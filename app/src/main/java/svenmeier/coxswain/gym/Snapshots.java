@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015 Sven Meier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package svenmeier.coxswain.gym;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Snapshots of a workout, decoded lazily from their chunks.
+ */
+public class Snapshots implements Iterable<Snapshot> {
+
+    private final List<SnapshotChunk> chunks;
+
+    public Snapshots(List<SnapshotChunk> chunks) {
+        this.chunks = chunks;
+    }
+
+    public List<SnapshotChunk> chunks() {
+        return chunks;
+    }
+
+    public int size() {
+        int size = 0;
+        for (SnapshotChunk chunk : chunks) {
+            size += chunk.count.get();
+        }
+        return size;
+    }
+
+    @Override
+    public Iterator<Snapshot> iterator() {
+        return new Iterator<Snapshot>() {
+
+            private int index;
+
+            private Iterator<Snapshot> current;
+
+            @Override
+            public boolean hasNext() {
+                while (current == null || current.hasNext() == false) {
+                    if (index == chunks.size()) {
+                        return false;
+                    }
+                    current = chunks.get(index++).snapshots();
+                }
+                return true;
+            }
+
+            @Override
+            public Snapshot next() {
+                if (hasNext() == false) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Get the chunks, those overlapping the given range first, followed by the others
+     * alternating in order of distance to the range.
+     *
+     * @param from milliseconds since start of workout
+     * @param to milliseconds since start of workout
+     */
+    public List<SnapshotChunk> chunks(long from, long to) {
+        int first = -1;
+        int last = -1;
+        for (int index = 0; index < chunks.size(); index++) {
+            int offset = chunks.get(index).firstOffset();
+            if (offset == -1) {
+                continue;
+            }
+
+            if (offset <= from || first == -1) {
+                first = index;
+            }
+            if (offset < to) {
+                last = index;
+            }
+        }
+
+        List<SnapshotChunk> ordered = new ArrayList<>(chunks.size());
+        if (first == -1) {
+            return ordered;
+        }
+        last = Math.max(first, last);
+
+        for (int index = first; index <= last; index++) {
+            ordered.add(chunks.get(index));
+        }
+        for (int distance = 1; first - distance >= 0 || last + distance < chunks.size(); distance++) {
+            if (last + distance < chunks.size()) {
+                ordered.add(chunks.get(last + distance));
+            }
+            if (first - distance >= 0) {
+                ordered.add(chunks.get(first - distance));
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Decode all snapshots into a series, without creating a {@link Snapshot} for each.
+     */
+    public SnapshotSeries series() {
+        SnapshotSeries series = new SnapshotSeries(size());
+        for (SnapshotChunk chunk : chunks) {
+            chunk.decodeInto(series);
+        }
+        return series;
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2015 Sven Meier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package svenmeier.coxswain.gym;
+
+/**
+ * Incremental statistics of measurements, updated in constant time per measurement.
+ * <p>
+ * Not thread-safe - published values are immutable {@link Values}.
+ */
+public class Statistics {
+
+    /**
+     * Minimum milliseconds between samples of rolling windows.
+     */
+    static final int SAMPLE_INTERVAL = 200;
+
+    /**
+     * Capacity of samples, must be a power of two.
+     */
+    static final int CAPACITY = 4096;
+
+    public static final int SHORT_WINDOW_MILLIS = 10000;
+
+    public static final int LONG_WINDOW_MILLIS = 30000;
+
+    public static final int DISTANCE_WINDOW_METERS = 500;
+
+    /**
+     * Time constant of exponential smoothing in milliseconds.
+     */
+    static final float SMOOTHING_MILLIS = 5000f;
+
+    private final int[] times = new int[CAPACITY];
+
+    private final int[] distances = new int[CAPACITY];
+
+    /**
+     * Count of samples ever added.
+     */
+    private int added;
+
+    /**
+     * First samples of the rolling windows.
+     */
+    private int shortHead;
+    private int longHead;
+    private int distanceHead;
+
+    private final Metric speed = new Metric();
+
+    private final Metric pulse = new Metric();
+
+    private final Metric strokeRate = new Metric();
+
+    private int lastOffset = -1;
+
+    /**
+     * Start a new segment, restarting minimum, maximum and mean.
+     */
+    public void segment() {
+        speed.segment();
+        pulse.segment();
+        strokeRate.segment();
+    }
+
+    /**
+     * A new measurement.
+     *
+     * @param offset milliseconds since start of workout
+     * @param measurement measurement
+     * @return current values
+     */
+    public Values measured(int offset, Measurement measurement) {
+        int elapsed = lastOffset == -1 ? 0 : Math.max(0, offset - lastOffset);
+        lastOffset = offset;
+
+        speed.add(measurement.speed, elapsed);
+        pulse.add(measurement.pulse, elapsed);
+        strokeRate.add(measurement.strokeRate, elapsed);
+
+        if (added == 0 || offset - times[(added - 1) & (CAPACITY - 1)] >= SAMPLE_INTERVAL) {
+            sample(offset, measurement.distance);
+        }
+
+        return new Values(this);
+    }
+
+    private void sample(int time, int distance) {
+        int index = added & (CAPACITY - 1);
+        times[index] = time;
+        distances[index] = distance;
+        added++;
+
+        int oldest = Math.max(0, added - CAPACITY);
+        shortHead = Math.max(shortHead, oldest);
+        longHead = Math.max(longHead, oldest);
+        distanceHead = Math.max(distanceHead, oldest);
+
+        while (shortHead < added - 1 && time - times[(shortHead + 1) & (CAPACITY - 1)] >= SHORT_WINDOW_MILLIS) {
+            shortHead++;
+        }
+        while (longHead < added - 1 && time - times[(longHead + 1) & (CAPACITY - 1)] >= LONG_WINDOW_MILLIS) {
+            longHead++;
+        }
+        while (distanceHead < added - 1 && distance - distances[(distanceHead + 1) & (CAPACITY - 1)] >= DISTANCE_WINDOW_METERS) {
+            distanceHead++;
+        }
+    }
+
+    /**
+     * Speed in centimeters per second since the given sample.
+     */
+    private int speedSince(int head) {
+        if (added == 0) {
+            return 0;
+        }
+
+        int from = head & (CAPACITY - 1);
+        int to = (added - 1) & (CAPACITY - 1);
+
+        int time = times[to] - times[from];
+        if (time <= 0) {
+            return 0;
+        }
+        return (int)((distances[to] - distances[from]) * 100000L / time);
+    }
+
+    /**
+     * Milliseconds since the given sample.
+     */
+    private int durationSince(int head) {
+        if (added == 0) {
+            return 0;
+        }
+
+        return times[(added - 1) & (CAPACITY - 1)] - times[head & (CAPACITY - 1)];
+    }
+
+    /**
+     * Statistics of a single value, zero is considered as missing.
+     */
+    private static class Metric {
+
+        int min;
+        int max;
+        long sum;
+        int count;
+
+        float smoothed;
+
+        void segment() {
+            min = 0;
+            max = 0;
+            sum = 0;
+            count = 0;
+        }
+
+        void add(int value, int elapsed) {
+            if (value <= 0) {
+                return;
+            }
+
+            if (count == 0) {
+                min = value;
+                max = value;
+            } else {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            sum += value;
+            count++;
+
+            if (smoothed == 0) {
+                smoothed = value;
+            } else {
+                float alpha = 1f - (float)Math.exp(-elapsed / SMOOTHING_MILLIS);
+                smoothed += alpha * (value - smoothed);
+            }
+        }
+
+        int mean() {
+            return count == 0 ? 0 : (int)(sum / count);
+        }
+    }
+
+    /**
+     * Immutable values of statistics.
+     */
+    public static class Values {
+
+        /**
+         * Speed over rolling windows in centimeters per second.
+         */
+        public final int shortSpeed;
+        public final int longSpeed;
+        public final int distanceSpeed;
+
+        /**
+         * Seconds for the last {@link #DISTANCE_WINDOW_METERS}.
+         */
+        public final int distanceDuration;
+
+        public final int smoothedSpeed;
+        public final int smoothedPulse;
+        public final int smoothedStrokeRate;
+
+        /**
+         * Minimum, maximum and mean of the current segment.
+         */
+        public final int minSpeed;
+        public final int maxSpeed;
+        public final int meanSpeed;
+        public final int minPulse;
+        public final int maxPulse;
+        public final int meanPulse;
+        public final int minStrokeRate;
+        public final int maxStrokeRate;
+        public final int meanStrokeRate;
+
+        public Values() {
+            shortSpeed = longSpeed = distanceSpeed = distanceDuration = 0;
+            smoothedSpeed = smoothedPulse = smoothedStrokeRate = 0;
+            minSpeed = maxSpeed = meanSpeed = 0;
+            minPulse = maxPulse = meanPulse = 0;
+            minStrokeRate = maxStrokeRate = meanStrokeRate = 0;
+        }
+
+        Values(Statistics statistics) {
+            shortSpeed = statistics.speedSince(statistics.shortHead);
+            longSpeed = statistics.speedSince(statistics.longHead);
+            distanceSpeed = statistics.speedSince(statistics.distanceHead);
+            distanceDuration = statistics.durationSince(statistics.distanceHead) / 1000;
+
+            smoothedSpeed = Math.round(statistics.speed.smoothed);
+            smoothedPulse = Math.round(statistics.pulse.smoothed);
+            smoothedStrokeRate = Math.round(statistics.strokeRate.smoothed);
+
+            minSpeed = statistics.speed.min;
+            maxSpeed = statistics.speed.max;
+            meanSpeed = statistics.speed.mean();
+            minPulse = statistics.pulse.min;
+            maxPulse = statistics.pulse.max;
+            meanPulse = statistics.pulse.mean();
+            minStrokeRate = statistics.strokeRate.min;
+            maxStrokeRate = statistics.strokeRate.max;
+            meanStrokeRate = statistics.strokeRate.mean();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2015 Sven Meier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package svenmeier.coxswain.gym;
+
+import java.util.Arrays;
+
+/**
+ * Append-only log of strokes held in parallel primitive arrays.
+ * <p>
+ * Encoded as zig-zag varint deltas of each value to the previous stroke, see {@link SnapshotCodec}.
+ */
+public class StrokeLog {
+
+    private static final int VALUES = 5;
+
+    private int size;
+
+    /**
+     * Start of stroke in milliseconds since epoch.
+     */
+    public long[] time;
+
+    /**
+     * Duration of drive in milliseconds.
+     */
+    public int[] drive;
+
+    /**
+     * Duration of recovery in milliseconds.
+     */
+    public int[] recovery;
+
+    /**
+     * Distance of stroke in meters.
+     */
+    public int[] distance;
+
+    /**
+     * Peak speed during stroke.
+     */
+    public int[] peakSpeed;
+
+    public StrokeLog() {
+        this(16);
+    }
+
+    public StrokeLog(int capacity) {
+        time = new long[capacity];
+        drive = new int[capacity];
+        recovery = new int[capacity];
+        distance = new int[capacity];
+        peakSpeed = new int[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void add(long time, int drive, int recovery, int distance, int peakSpeed) {
+        if (size == this.time.length) {
+            int capacity = Math.max(16, size * 2);
+
+            this.time = Arrays.copyOf(this.time, capacity);
+            this.drive = Arrays.copyOf(this.drive, capacity);
+            this.recovery = Arrays.copyOf(this.recovery, capacity);
+            this.distance = Arrays.copyOf(this.distance, capacity);
+            this.peakSpeed = Arrays.copyOf(this.peakSpeed, capacity);
+        }
+
+        this.time[size] = time;
+        this.drive[size] = drive;
+        this.recovery[size] = recovery;
+        this.distance[size] = distance;
+        this.peakSpeed[size] = peakSpeed;
+
+        size++;
+    }
+
+    public void addAll(StrokeLog log) {
+        for (int index = 0; index < log.size; index++) {
+            add(log.time[index], log.drive[index], log.recovery[index], log.distance[index], log.peakSpeed[index]);
+        }
+    }
+
+    public byte[] toBytes() {
+        SnapshotCodec.Output output = new SnapshotCodec.Output(size * VALUES * 2 + 16);
+
+        long[] previous = new long[VALUES];
+        long[] values = new long[VALUES];
+        for (int index = 0; index < size; index++) {
+            values[0] = time[index];
+            values[1] = drive[index];
+            values[2] = recovery[index];
+            values[3] = distance[index];
+            values[4] = peakSpeed[index];
+
+            for (int v = 0; v < VALUES; v++) {
+                output.write(values[v] - previous[v]);
+                previous[v] = values[v];
+            }
+        }
+
+        return output.toBytes();
+    }
+
+    public static StrokeLog fromBytes(byte[] bytes) {
+        StrokeLog log = new StrokeLog();
+        if (bytes == null) {
+            return log;
+        }
+
+        SnapshotCodec.Input input = new SnapshotCodec.Input(bytes);
+        long[] values = new long[VALUES];
+        while (input.hasMore()) {
+            for (int v = 0; v < VALUES; v++) {
+                values[v] += input.read();
+            }
+
+            log.add(values[0], (int)values[1], (int)values[2], (int)values[3], (int)values[4]);
+        }
+
+        return log;
+    }
+}
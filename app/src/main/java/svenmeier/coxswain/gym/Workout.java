@@ -41,6 +41,11 @@ public class Workout extends Propoid {
 
     public final Property<Boolean> evaluate = property();
 
+    /**
+     * Strokes encoded by {@link StrokeLog#toBytes()}.
+     */
+    public final Property<byte[]> strokeLog = property();
+
     public Workout() {
         this.duration.set(0);
         this.distance.set(0);
@@ -77,6 +82,13 @@ public class Workout extends Propoid {
         }
     }
 
+    /**
+     * Get the strokes of this workout.
+     */
+    public StrokeLog getStrokes() {
+        return StrokeLog.fromBytes(strokeLog.get());
+    }
+
     /**
      * Get the name of this workout's program.
      *
@@ -4,12 +4,20 @@ import android.app.Activity;
 import android.content.Intent;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.Environment;
+import android.os.Parcelable;
 import android.provider.OpenableColumns;
 import android.util.Log;
 import android.widget.Toast;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import svenmeier.coxswain.Coxswain;
 import svenmeier.coxswain.R;
+import svenmeier.coxswain.garmin.TcxBulkImport;
 import svenmeier.coxswain.garmin.TcxImport;
 
 /**
@@ -24,45 +32,84 @@ public class ImportIntention {
 
 
 	public boolean onIntent(Intent intent) {
-		Uri uri;
+		List<Uri> uris = new ArrayList<>();
 		if (Intent.ACTION_VIEW.equals(intent.getAction())) {
-			uri = intent.getData();
+			uris.add(intent.getData());
 		} else if (Intent.ACTION_SEND.equals(intent.getAction())) {
-			uri = intent.getParcelableExtra(Intent.EXTRA_STREAM);
+			uris.add((Uri)intent.getParcelableExtra(Intent.EXTRA_STREAM));
+		} else if (Intent.ACTION_SEND_MULTIPLE.equals(intent.getAction())) {
+			List<Parcelable> streams = intent.getParcelableArrayListExtra(Intent.EXTRA_STREAM);
+			if (streams != null) {
+				for (Parcelable stream : streams) {
+					uris.add((Uri)stream);
+				}
+			}
 		} else {
 			return false;
 		}
 
-		return importFrom(uri);
+		return importFrom(uris);
 	}
 
-	private boolean importFrom(Uri uri) {
-		Import<?> importer = null;
+	/**
+	 * Import all workouts from the folder exports are written to.
+	 */
+	public void importFolder() {
+		File dir = Environment.getExternalStoragePublicDirectory(Coxswain.TAG);
+
+		new TcxBulkImport(activity).start(Collections.singletonList(Uri.fromFile(dir)));
+	}
+
+	private boolean importFrom(List<Uri> uris) {
+		List<Uri> workouts = new ArrayList<>();
+		List<Uri> programs = new ArrayList<>();
+		boolean folder = false;
+
+		for (Uri uri : uris) {
+			try {
+				if ("file".equals(uri.getScheme()) && new File(uri.getPath()).isDirectory()) {
+					workouts.add(uri);
+					folder = true;
+					continue;
+				}
 
-		try {
-			String name = getFileName(uri);
-			int dot = name.lastIndexOf('.');
-			String extension = name.substring(dot + 1);
+				String name = getFileName(uri);
+				int dot = name.lastIndexOf('.');
+				String extension = name.substring(dot + 1);
 
-			if ("tcx".equalsIgnoreCase(extension)) {
-				importer = new TcxImport(activity);
-			} else if ("coxswain".equalsIgnoreCase(extension)) {
-				importer = new ProgramImport(activity);
+				if ("tcx".equalsIgnoreCase(extension)) {
+					workouts.add(uri);
+				} else if ("coxswain".equalsIgnoreCase(extension)) {
+					programs.add(uri);
+				}
+			} catch (Exception ex) {
+				Log.e(Coxswain.TAG, ex.getMessage());
 			}
-		} catch (Exception ex) {
-			Log.e(Coxswain.TAG, ex.getMessage());
 		}
 
-		if (importer == null) {
+		if (workouts.isEmpty() && programs.isEmpty()) {
 			Toast.makeText(activity, R.string.import_unknown, Toast.LENGTH_LONG).show();
 			return false;
 		}
 
-		importer.start(uri);
+		if (workouts.size() == 1 && folder == false) {
+			new TcxImport(activity).start(workouts.get(0));
+		} else if (workouts.isEmpty() == false) {
+			new TcxBulkImport(activity).start(workouts);
+		}
+
+		for (Uri program : programs) {
+			new ProgramImport(activity).start(program);
+		}
+
 		return true;
 	}
 
 	private String getFileName(Uri uri) {
+		if ("file".equals(uri.getScheme())) {
+			return uri.getLastPathSegment();
+		}
+
 		Cursor cursor = activity.getContentResolver().query(uri, new String[]{OpenableColumns.DISPLAY_NAME}, null, null, null);
 
 		if (cursor == null) {
@@ -77,4 +124,4 @@ public class ImportIntention {
 			}
 		}
 	}
-}
\ No newline at end of file
+}
@@ -17,6 +17,7 @@ package svenmeier.coxswain.rower;
 
 import propoid.core.Property;
 import svenmeier.coxswain.gym.Measurement;
+import svenmeier.coxswain.gym.StrokeLog;
 import svenmeier.coxswain.gym.Workout;
 
 /**
@@ -48,6 +49,14 @@ public abstract class Rower extends Measurement {
      */
     public abstract boolean row();
 
+    /**
+     * Move strokes recorded since the last call to the given log - may be called on any thread.
+     * <p>
+     * Default implementation does not record strokes.
+     */
+    public void drainStrokes(StrokeLog strokes) {
+    }
+
     /**
      * Close the rower.
      */
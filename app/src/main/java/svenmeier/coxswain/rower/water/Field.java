@@ -25,6 +25,21 @@ public class Field {
 
     public String response;
 
+    /**
+     * Time of an outstanding request, {@code 0} if none.
+     */
+    public long requested;
+
+    /**
+     * Time of the last request, {@code 0} if never requested.
+     */
+    public long polled;
+
+    /**
+     * Interval after which the request is repeated, {@code 0} for each cycle.
+     */
+    public long interval;
+
     protected Field() {
     }
 
@@ -33,7 +48,17 @@ public class Field {
         this.response = response;
     }
 
-    protected boolean input(String message, Measurement measurement) {
+    /**
+     * Time when this field is due to be requested - immediately if never requested before.
+     */
+    public long due() {
+        if (polled == 0) {
+            return 0;
+        }
+        return polled + interval;
+    }
+
+    protected boolean input(Message message, Measurement measurement) {
         if (this.response != null && message.startsWith(response)) {
             onInput(message, measurement);
 
@@ -43,7 +68,7 @@ public class Field {
         return false;
     }
 
-    protected void onInput(String message, Measurement measurement) {
+    protected void onInput(Message message, Measurement measurement) {
 
     }
 
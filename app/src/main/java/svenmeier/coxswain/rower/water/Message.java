@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 Sven Meier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package svenmeier.coxswain.rower.water;
+
+/**
+ * A single message received from the Waterrower, backed by a reusable byte buffer.
+ * <p>
+ * Bytes are collected until a line ends and are then parsed in place, so handling
+ * a message does not allocate.
+ */
+public class Message implements CharSequence {
+
+    private static final int CODEPOINT_0 = 48;
+    private static final int CODEPOINT_A = 65;
+
+    private byte[] bytes = new byte[64];
+
+    private int length;
+
+    public void clear() {
+        length = 0;
+    }
+
+    public void append(byte b) {
+        if (length == bytes.length) {
+            byte[] temp = new byte[bytes.length * 2];
+            System.arraycopy(bytes, 0, temp, 0, length);
+            bytes = temp;
+        }
+
+        bytes[length++] = b;
+    }
+
+    public byte byteAt(int index) {
+        return bytes[index];
+    }
+
+    /**
+     * Does this message start with the given prefix.
+     */
+    public boolean startsWith(String prefix) {
+        int prefixLength = prefix.length();
+        if (prefixLength > length) {
+            return false;
+        }
+
+        for (int c = 0; c < prefixLength; c++) {
+            if (bytes[c] != (byte)prefix.charAt(c)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Decode hexadecimal digits.
+     *
+     * @param start index of first digit
+     * @param end index after last digit
+     */
+    public int hex(int start, int end) {
+        int total = 0;
+
+        for (int c = start; c < end; c++) {
+            total *= 16;
+
+            int codepoint = bytes[c];
+            int digit = codepoint - CODEPOINT_0;
+            if (digit > 9) {
+                digit = 10 + (codepoint - CODEPOINT_A);
+            }
+
+            total += digit;
+        }
+
+        return total;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char)(bytes[index] & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder(length);
+        for (int c = 0; c < length; c++) {
+            string.append(charAt(c));
+        }
+        return string.toString();
+    }
+}
@@ -25,14 +25,38 @@ public abstract class NumberField extends Field {
     public static final int DOUBLE_BYTE = 2;
     public static final int TRIPLE_BYTE = 3;
 
+    /**
+     * Count of addressable memory locations.
+     */
+    public static final int ADDRESSES = 0x1000;
+
     protected static final int CODEPOINT_0 = 48;
-    protected static final int CODEPOINT_A = 65;
+
+    public final int address;
+
+    public final int size;
 
     /**
      * @param address memory address
      * @param size data size SINGLE_BYTE, DOUBLE_BYTE or TRIPLE_BYTE
      */
     NumberField(int address, int size) {
+        this(address, size, 0);
+    }
+
+    /**
+     * @param address memory address
+     * @param size data size SINGLE_BYTE, DOUBLE_BYTE or TRIPLE_BYTE
+     * @param interval refresh interval in milliseconds
+     */
+    NumberField(int address, int size, long interval) {
+        if (address < 0 || address >= ADDRESSES) {
+            throw new IllegalArgumentException("invalid address " + address);
+        }
+        this.address = address;
+        this.size = size;
+        this.interval = interval;
+
         String ach = toAscii(address, 3, 16);
 
         switch (size) {
@@ -54,28 +78,14 @@ public abstract class NumberField extends Field {
     }
 
     @Override
-    protected void onInput(String message, Measurement measurement) {
+    protected void onInput(Message message, Measurement measurement) {
         onUpdate(fromAscii(message, response.length()), measurement);
     }
 
     protected abstract void onUpdate(int value, Measurement measurement);
 
-    protected int fromAscii(String data, int start) {
-        int total = 0;
-
-        for (int c = start; c < data.length(); c++) {
-            total *= 16;
-
-            int codepoint = (int)data.charAt(c);
-            int digit = codepoint - CODEPOINT_0;
-            if (digit > 9) {
-                digit = 10 + (codepoint - CODEPOINT_A);
-            }
-
-            total += digit;
-        }
-
-        return total;
+    protected int fromAscii(Message data, int start) {
+        return data.hex(start, data.length());
     }
 
     protected String toAscii(int value, int length, int base) {
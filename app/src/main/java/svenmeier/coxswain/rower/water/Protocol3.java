@@ -57,6 +57,9 @@ public class Protocol3 implements IProtocol {
     @Override
     public void transfer(Measurement measurement) {
         int length = transfer.bulkInput();
+        if (length == 0) {
+            transfer.awaitInput(TIMEOUT);
+        }
 
         byte[] buffer = transfer.buffer();
         for (int c = 0; c < length; c++) {
@@ -29,20 +29,52 @@ public class Protocol4 implements IProtocol {
 
     private static final long DEFAULT_OUTPUT_THROTTLE = 25;
 
+    /*
+     * Refresh intervals of memory locations - fast changing values are requested more often.
+     */
+    private static final long SPEED_INTERVAL = 100;
+    private static final long STROKE_RATE_INTERVAL = 250;
+    private static final long DISTANCE_INTERVAL = 250;
+    private static final long DURATION_INTERVAL = 250;
+    private static final long STROKES_INTERVAL = 500;
+    private static final long PULSE_INTERVAL = 500;
+    private static final long ENERGY_INTERVAL = 1000;
+
+    /**
+     * Time after which an unanswered request is no longer considered outstanding.
+     */
+    private static final long OUTSTANDING_TIMEOUT_MILLIS = 500;
+
     private final ITransfer transfer;
 
     private final ITrace trace;
 
     private List<Field> fields = new ArrayList<>();
 
+    /**
+     * Number fields indexed by size and memory address.
+     */
+    private final NumberField[][] numberFields = new NumberField[NumberField.TRIPLE_BYTE + 1][NumberField.ADDRESSES];
+
+    private final Message message = new Message();
+
+    /**
+     * Fields written in the current output.
+     */
+    private final List<Field> outputs = new ArrayList<>();
+
     public final RatioCalculator ratioCalculator = new RatioCalculator();
 
     public final EnergyCalculator energyCalculator = new EnergyCalculator();
 
+    public final StrokeRecorder strokeRecorder = new StrokeRecorder();
+
     private int cycle = 0;
 
     private long outputThrottle = DEFAULT_OUTPUT_THROTTLE;
 
+    private int pipeline = 1;
+
     private long lastOutput = 0;
 
     private long lastPulse = 0;
@@ -58,7 +90,7 @@ public class Protocol4 implements IProtocol {
         this.trace = aTrace;
         aTrace.comment("protocol 4");
 
-        fields.add(new Field("USB", "_WR_") {
+        add(new Field("USB", "_WR_") {
 
             /**
              * Output once only.
@@ -69,7 +101,7 @@ public class Protocol4 implements IProtocol {
             }
 
             @Override
-            protected void onInput(String message, Measurement measurement) {
+            protected void onInput(Message message, Measurement measurement) {
                 onHandshake();
 
                 trace.comment("handshake complete");
@@ -80,7 +112,7 @@ public class Protocol4 implements IProtocol {
     private void onHandshake() {
         cycle = 0;
 
-        fields.add(new Field("IV?", "IV") {
+        add(new Field("IV?", "IV") {
 
             /**
              * Output once only.
@@ -91,75 +123,81 @@ public class Protocol4 implements IProtocol {
             }
 
             @Override
-            protected void onInput(String message, Measurement measurement) {
-                version = message.substring(response.length());
+            protected void onInput(Message message, Measurement measurement) {
+                version = message.subSequence(response.length(), message.length()).toString();
 
                 trace.comment("version " + version);
             }
         });
 
-        fields.add(new Field(null, "PING") {
+        add(new Field(null, "PING") {
             @Override
-            protected void onInput(String message, Measurement measurement) {
+            protected void onInput(Message message, Measurement measurement) {
             }
         });
 
-        fields.add(new Field(null, "ERROR") {
+        add(new Field(null, "ERROR") {
             @Override
-            protected void onInput(String message, Measurement measurement) {
+            protected void onInput(Message message, Measurement measurement) {
             }
         });
 
-        fields.add(new Field(null, "SS") {
+        add(new Field(null, "SS") {
             @Override
-            protected void onInput(String message, Measurement measurement) {
-                ratioCalculator.pulling(measurement, System.currentTimeMillis());
+            protected void onInput(Message message, Measurement measurement) {
+                long now = System.currentTimeMillis();
+                ratioCalculator.pulling(measurement, now);
+                strokeRecorder.pulling(measurement, now);
             }
         });
 
-        fields.add(new Field(null, "SE") {
+        add(new Field(null, "SE") {
             @Override
-            protected void onInput(String message, Measurement measurement) {
-                ratioCalculator.recovering(measurement, System.currentTimeMillis());
+            protected void onInput(Message message, Measurement measurement) {
+                long now = System.currentTimeMillis();
+                ratioCalculator.recovering(measurement, now);
+                strokeRecorder.recovering(measurement, now);
             }
         });
 
-        fields.add(new Field(null, "P") {
+        add(new Field(null, "P") {
             @Override
-            protected void onInput(String message, Measurement measurement) {
+            protected void onInput(Message message, Measurement measurement) {
                 lastPulse = System.currentTimeMillis();
             }
         });
 
-        fields.add(new NumberField(0x140, NumberField.DOUBLE_BYTE) {
+        add(new NumberField(0x140, NumberField.DOUBLE_BYTE, STROKES_INTERVAL) {
             @Override
             protected void onUpdate(int value, Measurement measurement) {
                 measurement.strokes = value;
             }
         });
 
-        fields.add(new NumberField(0x057, NumberField.DOUBLE_BYTE) {
+        add(new NumberField(0x057, NumberField.DOUBLE_BYTE, DISTANCE_INTERVAL) {
             @Override
             protected void onUpdate(int value, Measurement measurement) {
                 measurement.distance = value;
             }
         });
 
-        fields.add(new NumberField(0x14A, NumberField.DOUBLE_BYTE) {
+        add(new NumberField(0x14A, NumberField.DOUBLE_BYTE, SPEED_INTERVAL) {
             @Override
             protected void onUpdate(int value, Measurement measurement) {
                 measurement.speed = value;
+
+                strokeRecorder.speed(measurement);
             }
         });
 
-        fields.add(new NumberField(0x1A9, NumberField.SINGLE_BYTE) {
+        add(new NumberField(0x1A9, NumberField.SINGLE_BYTE, STROKE_RATE_INTERVAL) {
             @Override
             protected void onUpdate(int value, Measurement measurement) {
                 measurement.strokeRate = value;
             }
         });
 
-        fields.add(new NumberField(0x1A0, NumberField.SINGLE_BYTE) {
+        add(new NumberField(0x1A0, NumberField.SINGLE_BYTE, PULSE_INTERVAL) {
             @Override
             protected void onUpdate(int value, Measurement measurement) {
                 if (lastPulse > 0) {
@@ -176,25 +214,25 @@ public class Protocol4 implements IProtocol {
             }
         });
 
-        fields.add(new NumberField(0x08A, NumberField.TRIPLE_BYTE) {
+        add(new NumberField(0x08A, NumberField.TRIPLE_BYTE, ENERGY_INTERVAL) {
             @Override
             protected void onUpdate(int value, Measurement measurement) {
                 measurement.energy = energyCalculator.energy(value);
             }
         });
 
-        fields.add(new NumberField(0x1E1, NumberField.TRIPLE_BYTE) {
+        add(new NumberField(0x1E1, NumberField.TRIPLE_BYTE, DURATION_INTERVAL) {
 			/**
 			 * Duration is sent in decimal representation.
              */
             @Override
-            protected int fromAscii(String data, int start) {
+            protected int fromAscii(Message data, int start) {
                 int total = 0;
 
                 for (int c = start; c < data.length(); c++) {
                     total *= c % 2 == 0 ? 6 : 10;
 
-                    int codepoint = (int)data.charAt(c);
+                    int codepoint = data.byteAt(c);
                     int digit = codepoint - CODEPOINT_0;
 
                     total += digit;
@@ -210,34 +248,106 @@ public class Protocol4 implements IProtocol {
         });
     }
 
+    private void add(Field field) {
+        fields.add(field);
+
+        if (field instanceof NumberField) {
+            NumberField numberField = (NumberField) field;
+
+            numberFields[numberField.size][numberField.address] = numberField;
+        }
+    }
+
     public void setOutputThrottle(long outputThrottle) {
         this.outputThrottle = outputThrottle;
     }
 
+    /**
+     * Set the count of requests which may be outstanding at once - if greater than one,
+     * several requests are packed into a single output and responses are matched
+     * as they arrive.
+     *
+     * @param pipeline maximum count of outstanding requests
+     */
+    public void setPipeline(int pipeline) {
+        if (pipeline < 1) {
+            throw new IllegalArgumentException("pipeline must be at least 1");
+        }
+        this.pipeline = pipeline;
+    }
+
     public String getVersion() {
         return version;
     }
 
-    private Field nextField() {
+    /**
+     * Get the field which is due next - fields with equal due time are taken in turn.
+     *
+     * @return next field or {@code null} if no field is due
+     */
+    private Field nextField(long now) {
+        Field next = null;
+        int nextIndex = 0;
+        long nextDue = Long.MAX_VALUE;
+
         for (int f = 0; f < fields.size(); f++) {
-            cycle = cycle % fields.size();
+            int index = (cycle + f) % fields.size();
+
+            Field field = fields.get(index);
+            if (field.request == null || isOutstanding(field, now) || outputs.contains(field)) {
+                continue;
+            }
+
+            long due = field.due();
+            if (due <= now && due < nextDue) {
+                next = field;
+                nextIndex = index;
+                nextDue = due;
+            }
+        }
 
-            Field field = fields.get(cycle);
+        if (next != null) {
+            cycle = nextIndex + 1;
+        }
+
+        return next;
+    }
 
-            cycle++;
+    private boolean isOutstanding(Field field, long now) {
+        return field.requested > 0 && now - field.requested < OUTSTANDING_TIMEOUT_MILLIS;
+    }
 
-            if (field.request != null) {
-                return field;
+    private int outstanding(long now) {
+        int count = 0;
+
+        for (int f = 0; f < fields.size(); f++) {
+            if (isOutstanding(fields.get(f), now)) {
+                count++;
             }
         }
 
-        return null;
+        return count;
     }
 
-    private boolean inputField(Measurement measurement, String message) {
+    private boolean inputField(Measurement measurement, Message message) {
+
+        NumberField numberField = numberField(message);
+        if (numberField != null) {
+            numberField.requested = 0;
+            numberField.onInput(message, measurement);
+
+            return true;
+        }
 
         for (int f = 0; f < fields.size(); f++) {
-            if (fields.get(f).input(message, measurement)) {
+            Field field = fields.get(f);
+            if (field instanceof NumberField) {
+                // already handled above
+                continue;
+            }
+
+            if (field.input(message, measurement)) {
+                field.requested = 0;
                 return true;
             }
         }
@@ -245,62 +355,133 @@ public class Protocol4 implements IProtocol {
         return false;
     }
 
+    /**
+     * Lookup the number field for a {@code IDS}, {@code IDD} or {@code IDT} response.
+     */
+    private NumberField numberField(Message message) {
+        if (message.length() < 6 || message.byteAt(0) != 'I' || message.byteAt(1) != 'D') {
+            return null;
+        }
+
+        int size;
+        switch (message.byteAt(2)) {
+            case 'S':
+                size = NumberField.SINGLE_BYTE;
+                break;
+            case 'D':
+                size = NumberField.DOUBLE_BYTE;
+                break;
+            case 'T':
+                size = NumberField.TRIPLE_BYTE;
+                break;
+            default:
+                return null;
+        }
+
+        int address = message.hex(3, 6);
+        if (address < 0 || address >= NumberField.ADDRESSES) {
+            return null;
+        }
+
+        return numberFields[size][address];
+    }
+
     public void transfer(Measurement measurement) {
+        transfer(measurement, System.currentTimeMillis());
+    }
+
+    void transfer(Measurement measurement, long now) {
 
-        input(measurement);
+        boolean received = input(measurement);
 
-        output();
+        output(now);
+
+        if (received == false) {
+            // wait for input, but not longer than the next output is due
+            transfer.awaitInput(Math.max(0, lastOutput + outputThrottle - now));
+        }
     }
 
-    private void output() {
-        if (System.currentTimeMillis() - lastOutput < outputThrottle) {
+    private void output(long now) {
+        if (now - lastOutput < outputThrottle) {
             return;
         }
-        lastOutput = System.currentTimeMillis();
+        lastOutput = now;
+
+        byte[] buffer = transfer.buffer();
+        int c = 0;
+
+        int count = pipeline - outstanding(now);
+        for (int r = 0; r < count; r++) {
+            int previous = cycle;
+
+            Field field = nextField(now);
+            if (field == null) {
+                break;
+            }
 
-        Field field = nextField();
-        if (field != null) {
             String request = field.request;
+            if (c + request.length() + 2 > buffer.length) {
+                // output on next cycle
+                cycle = previous;
+                break;
+            }
 
             trace.onOutput(request);
 
-            byte[] buffer = transfer.buffer();
-            int c = 0;
-            for (; c < request.length(); c++) {
-                buffer[c] = (byte)request.charAt(c);
+            for (int i = 0; i < request.length(); i++) {
+                buffer[c++] = (byte)request.charAt(i);
             }
             buffer[c++] = '\r';
             buffer[c++] = '\n';
 
+            field.polled = now;
+            if (pipeline > 1 && field.response != null) {
+                field.requested = now;
+            }
+
+            outputs.add(field);
+        }
+
+        if (c > 0) {
             transfer.bulkOutput(c);
 
-            field.onAfterOutput();
+            for (int f = 0; f < outputs.size(); f++) {
+                outputs.get(f).onAfterOutput();
+            }
+            outputs.clear();
         }
     }
 
-    private void input(Measurement measurement) {
+    /**
+     * Parse input directly from the transfer's buffer - a message split over
+     * two transfers is continued on the next input.
+     *
+     * @return whether any input was received
+     */
+    private boolean input(Measurement measurement) {
         int length = transfer.bulkInput();
         if (length > 0) {
             byte[] buffer = transfer.buffer();
-            StringBuilder response = new StringBuilder();
             for (int c = 0; c < length; c++) {
-                char character = (char)buffer[c];
+                byte character = buffer[c];
                 if (character == '\n' || character == '\r') {
-                    if (response.length() > 0) {
-                        String message = response.toString();
+                    if (message.length() > 0) {
                         trace.onInput(message);
 
                         if (inputField(measurement, message) == false) {
                             trace.comment("unrecognized");
                         }
 
-                        response.setLength(0);
+                        message.clear();
                     }
                 } else {
-                    response.append(character);
+                    message.append(character);
                 }
             }
         }
+
+        return length > 0;
     }
 
     @Override
@@ -319,5 +500,6 @@ public class Protocol4 implements IProtocol {
         cycle = fields.indexOf(reset);
 
         ratioCalculator.clear(System.currentTimeMillis());
+        strokeRecorder.clear();
     }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015 Sven Meier
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package svenmeier.coxswain.rower.water;
+
+import svenmeier.coxswain.gym.Measurement;
+import svenmeier.coxswain.gym.StrokeLog;
+
+/**
+ * Recorder of strokes from stroke start and end messages.
+ * <p>
+ * Strokes are recorded on the rowing thread and drained by any other thread.
+ */
+public class StrokeRecorder {
+
+    /**
+     * Completed strokes, guarded by this.
+     */
+    private final StrokeLog log = new StrokeLog();
+
+    private long driveStart = -1;
+
+    private long recoveryStart = -1;
+
+    private int startDistance;
+
+    private int peakSpeed;
+
+    public synchronized void clear() {
+        driveStart = -1;
+        recoveryStart = -1;
+
+        log.clear();
+    }
+
+    public void pulling(Measurement measurement, long now) {
+        if (driveStart != -1 && recoveryStart == -1) {
+            // still pulling
+            return;
+        }
+
+        if (driveStart != -1) {
+            synchronized (this) {
+                log.add(driveStart, (int)(recoveryStart - driveStart), (int)(now - recoveryStart), measurement.distance - startDistance, peakSpeed);
+            }
+        }
+
+        driveStart = now;
+        recoveryStart = -1;
+        startDistance = measurement.distance;
+        peakSpeed = measurement.speed;
+    }
+
+    public void recovering(Measurement measurement, long now) {
+        if (driveStart != -1 && recoveryStart == -1) {
+            recoveryStart = now;
+        }
+    }
+
+    public void speed(Measurement measurement) {
+        peakSpeed = Math.max(peakSpeed, measurement.speed);
+    }
+
+    /**
+     * Move all recorded strokes to the given log.
+     */
+    public synchronized void drainTo(StrokeLog target) {
+        target.addAll(log);
+
+        log.clear();
+    }
+}
@@ -31,8 +31,10 @@ import propoid.util.content.Preference;
 import svenmeier.coxswain.BuildConfig;
 import svenmeier.coxswain.Coxswain;
 import svenmeier.coxswain.R;
+import svenmeier.coxswain.gym.StrokeLog;
 import svenmeier.coxswain.rower.Rower;
 import svenmeier.coxswain.rower.water.usb.ITransfer;
+import svenmeier.coxswain.rower.water.usb.UsbRequestTransfer;
 import svenmeier.coxswain.rower.water.usb.UsbTransfer;
 
 /**
@@ -40,6 +42,8 @@ import svenmeier.coxswain.rower.water.usb.UsbTransfer;
  */
 public class WaterRower extends Rower {
 
+    private static final int PIPELINE = 8;
+
     private final Context context;
 
     private final UsbDevice device;
@@ -50,6 +54,8 @@ public class WaterRower extends Rower {
 
     private IProtocol protocol;
 
+    private volatile StrokeRecorder strokeRecorder;
+
     private boolean detached;
 
     private BroadcastReceiver receiver;
@@ -98,7 +104,11 @@ public class WaterRower extends Rower {
         } else {
             Protocol4 protocol4 = new Protocol4(transfer, trace);
             protocol4.energyCalculator.setWeight(Preference.getInt(context, R.string.preference_weight).fallback(90).get());
+            if (Preference.getBoolean(context, R.string.preference_hardware_pipeline).get()) {
+                protocol4.setPipeline(PIPELINE);
+            }
             protocol = protocol4;
+            strokeRecorder = protocol4.strokeRecorder;
         }
 
         return true;
@@ -125,6 +135,9 @@ public class WaterRower extends Rower {
 
         closeTrace();
 
+        strokeRecorder = null;
+
+        this.transfer.close();
         this.transfer = null;
 
         if (this.connection != null) {
@@ -140,6 +153,14 @@ public class WaterRower extends Rower {
         protocol.reset();
     }
 
+    @Override
+    public void drainStrokes(StrokeLog strokes) {
+        StrokeRecorder strokeRecorder = this.strokeRecorder;
+        if (strokeRecorder != null) {
+            strokeRecorder.drainTo(strokes);
+        }
+    }
+
     @Override
     public boolean row() {
         if (isOpen() == false || detached) {
@@ -204,7 +225,11 @@ public class WaterRower extends Rower {
             if (out != null && in != null) {
                 if (this.connection.claimInterface(anInterface, true)) {
                     trace.comment(String.format("claimed interface %s", interfaceId));
-                    transfer = new UsbTransfer(connection, in, out);
+                    if (Preference.getBoolean(context, R.string.preference_hardware_queue).get()) {
+                        transfer = new UsbRequestTransfer(connection, in, out);
+                    } else {
+                        transfer = new UsbTransfer(connection, in, out);
+                    }
                     return true;
                 } else {
                     trace.comment(String.format("cannot claim interface %s", interfaceId));
@@ -22,7 +22,21 @@ public interface ITransfer {
 
 	byte[] buffer();
 
+	/**
+	 * Input without waiting.
+	 *
+	 * @return count of bytes in {@link #buffer()}
+	 */
 	int bulkInput();
 
+	/**
+	 * Wait for input to become available.
+	 *
+	 * @param timeout maximum time to wait in milliseconds
+	 */
+	void awaitInput(long timeout);
+
 	void bulkOutput(int length);
+
+	void close();
 }
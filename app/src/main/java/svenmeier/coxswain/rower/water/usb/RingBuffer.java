@@ -0,0 +1,135 @@
+package svenmeier.coxswain.rower.water.usb;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A lock-free ring of bytes for a single producer and a single consumer thread.
+ */
+public class RingBuffer {
+
+	private final byte[] bytes;
+
+	private final int mask;
+
+	/**
+	 * Position of next read, written by consumer only.
+	 */
+	private final AtomicLong head = new AtomicLong();
+
+	/**
+	 * Position of next write, written by producer only.
+	 */
+	private final AtomicLong tail = new AtomicLong();
+
+	private volatile Thread waiting;
+
+	/**
+	 * @param capacity capacity, must be a power of two
+	 */
+	public RingBuffer(int capacity) {
+		if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("capacity must be a power of two");
+		}
+
+		this.bytes = new byte[capacity];
+		this.mask = capacity - 1;
+	}
+
+	public int capacity() {
+		return bytes.length;
+	}
+
+	public int available() {
+		return (int) (tail.get() - head.get());
+	}
+
+	/**
+	 * Write bytes - called by the producer only.
+	 *
+	 * @return count of bytes written, less than length if the ring is full
+	 */
+	public int write(byte[] src, int offset, int length) {
+		long t = tail.get();
+		long h = head.get();
+
+		int count = Math.min(length, bytes.length - (int) (t - h));
+		if (count > 0) {
+			int index = (int) (t & mask);
+			int first = Math.min(count, bytes.length - index);
+			System.arraycopy(src, offset, bytes, index, first);
+			System.arraycopy(src, offset + first, bytes, 0, count - first);
+
+			tail.set(t + count);
+
+			Thread waiting = this.waiting;
+			if (waiting != null) {
+				LockSupport.unpark(waiting);
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Read available bytes - called by the consumer only.
+	 *
+	 * @return count of bytes read
+	 */
+	public int read(byte[] dst, int offset, int length) {
+		long h = head.get();
+		long t = tail.get();
+
+		int count = Math.min(length, (int) (t - h));
+		if (count > 0) {
+			int index = (int) (h & mask);
+			int first = Math.min(count, bytes.length - index);
+			System.arraycopy(bytes, index, dst, offset, first);
+			System.arraycopy(bytes, 0, dst, offset + first, count - first);
+
+			head.lazySet(h + count);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Read bytes, waiting for the producer if none are available - called by the consumer only.
+	 *
+	 * @param timeout maximum time to wait in milliseconds
+	 * @return count of bytes read, {@code 0} if timed out
+	 */
+	public int read(byte[] dst, int offset, int length, long timeout) {
+		if (await(timeout) == false) {
+			return 0;
+		}
+
+		return read(dst, offset, length);
+	}
+
+	/**
+	 * Wait for the producer if no bytes are available - called by the consumer only.
+	 *
+	 * @param timeout maximum time to wait in milliseconds
+	 * @return {@code false} if timed out
+	 */
+	public boolean await(long timeout) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+		while (available() == 0) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				return false;
+			}
+
+			waiting = Thread.currentThread();
+			if (available() == 0) {
+				LockSupport.parkNanos(this, remaining);
+			}
+			waiting = null;
+		}
+
+		return true;
+	}
+}
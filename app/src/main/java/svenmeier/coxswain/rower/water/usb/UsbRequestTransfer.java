@@ -0,0 +1,97 @@
+package svenmeier.coxswain.rower.water.usb;
+
+import android.hardware.usb.UsbDeviceConnection;
+import android.hardware.usb.UsbEndpoint;
+import android.hardware.usb.UsbRequest;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Transfer over USB which keeps several {@link UsbRequest}s queued for input, so no bytes
+ * are missed between two reads.
+ */
+public class UsbRequestTransfer extends UsbTransfer {
+
+	private static final int REQUESTS = 4;
+
+	public UsbRequestTransfer(UsbDeviceConnection connection, UsbEndpoint input, UsbEndpoint output) {
+		super(connection, input, output);
+	}
+
+	@Override
+	protected Reader createReader() {
+		return new RequestReader();
+	}
+
+	/**
+	 * Reads with queued requests.
+	 */
+	private class RequestReader extends Reader {
+
+		private final UsbRequest[] requests = new UsbRequest[REQUESTS];
+
+		private final byte[] bytes = new byte[input.getMaxPacketSize()];
+
+		@Override
+		public void start() {
+			for (int r = 0; r < requests.length; r++) {
+				UsbRequest request = new UsbRequest();
+				request.initialize(connection, input);
+
+				ByteBuffer buffer = ByteBuffer.allocateDirect(input.getMaxPacketSize());
+				request.setClientData(buffer);
+				request.queue(buffer, buffer.capacity());
+
+				requests[r] = request;
+			}
+
+			super.start();
+		}
+
+		@Override
+		public void run() {
+			while (running) {
+				UsbRequest request = connection.requestWait();
+				if (request == null) {
+					// connection closed
+					break;
+				}
+
+				ByteBuffer buffer = (ByteBuffer) request.getClientData();
+				if (buffer == null) {
+					continue;
+				}
+
+				// position was set to the count of bytes transferred
+				buffer.flip();
+				int length = buffer.remaining();
+				buffer.get(bytes, 0, length);
+				buffer.clear();
+
+				if (length > 0) {
+					write(bytes, length);
+				}
+
+				if (running) {
+					request.queue(buffer, buffer.capacity());
+				}
+			}
+		}
+
+		@Override
+		public void stop() {
+			running = false;
+
+			for (UsbRequest request : requests) {
+				// let requestWait() return
+				request.cancel();
+			}
+
+			super.stop();
+
+			for (UsbRequest request : requests) {
+				request.close();
+			}
+		}
+	}
+}
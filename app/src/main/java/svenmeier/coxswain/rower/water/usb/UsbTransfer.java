@@ -2,25 +2,38 @@ package svenmeier.coxswain.rower.water.usb;
 
 import android.hardware.usb.UsbDeviceConnection;
 import android.hardware.usb.UsbEndpoint;
+import android.util.Log;
+
+import svenmeier.coxswain.Coxswain;
 
 /**
+ * Transfer over USB - input is read on a separate thread into a {@link RingBuffer}, so
+ * reading never delays output.
  */
 public class UsbTransfer implements ITransfer {
 
+	private static final int RING_CAPACITY = 4096;
+
+	protected static final int READ_TIMEOUT = 100;
+
 	private static final int SET_DATA_REQUEST_TYPE = 0x40;
 
 	private static final int SET_BAUD_RATE = 0x03;
 
 	private static final int SET_DATA = 0x04;
 
-	private final UsbDeviceConnection connection;
-	private final UsbEndpoint output;
-	private final UsbEndpoint input;
+	protected final UsbDeviceConnection connection;
+	protected final UsbEndpoint output;
+	protected final UsbEndpoint input;
 
 	private byte[] buffer;
 
 	private int timeout;
 
+	protected final RingBuffer ring = new RingBuffer(RING_CAPACITY);
+
+	private Reader reader;
+
 	public UsbTransfer(UsbDeviceConnection connection, UsbEndpoint input, UsbEndpoint output) {
 		this.connection = connection;
 
@@ -52,14 +65,41 @@ public class UsbTransfer implements ITransfer {
 		return buffer;
 	}
 
+	/**
+	 * Input held by the ring, never waits.
+	 */
 	public int bulkInput() {
-		return connection.bulkTransfer(input, buffer, buffer.length, timeout);
+		startReader();
+
+		return ring.read(buffer, 0, buffer.length);
+	}
+
+	@Override
+	public void awaitInput(long timeout) {
+		startReader();
+
+		ring.await(timeout);
+	}
+
+	private void startReader() {
+		if (reader == null) {
+			reader = createReader();
+			reader.start();
+		}
 	}
 
 	public void bulkOutput(int length) {
 		connection.bulkTransfer(output, buffer, length, timeout);
 	}
 
+	@Override
+	public void close() {
+		if (reader != null) {
+			reader.stop();
+			reader = null;
+		}
+	}
+
 	public static int divisor(int baudrate) {
 		return 3000000 / baudrate;
 	}
@@ -67,4 +107,63 @@ public class UsbTransfer implements ITransfer {
 	public static int data(int dataBits, int parity, int stopBits, boolean tx) {
 		return (tx ? 1 << 14 : 0) | (stopBits << 11) | (parity << 8) | dataBits;
 	}
+
+	/**
+	 * Create the reader of input.
+	 */
+	protected Reader createReader() {
+		return new BulkReader();
+	}
+
+	/**
+	 * Reads input on a separate thread into the ring.
+	 */
+	protected abstract class Reader implements Runnable {
+
+		private Thread thread;
+
+		protected volatile boolean running = true;
+
+		public void start() {
+			thread = new Thread(this, "usb reader");
+			thread.start();
+		}
+
+		public void stop() {
+			running = false;
+
+			try {
+				thread.join(READ_TIMEOUT * 2);
+			} catch (InterruptedException ignore) {
+			}
+		}
+
+		/**
+		 * Write input into the ring, logging bytes dropped when it is full.
+		 */
+		protected void write(byte[] bytes, int length) {
+			int written = ring.write(bytes, 0, length);
+			if (written < length) {
+				Log.w(Coxswain.TAG, String.format("input overflow, dropped %s bytes", length - written));
+			}
+		}
+	}
+
+	/**
+	 * Reads with synchronous bulk transfers.
+	 */
+	private class BulkReader extends Reader {
+
+		private final byte[] bytes = new byte[input.getMaxPacketSize()];
+
+		@Override
+		public void run() {
+			while (running) {
+				int length = connection.bulkTransfer(input, bytes, bytes.length, READ_TIMEOUT);
+				if (length > 0) {
+					write(bytes, length);
+				}
+			}
+		}
+	}
 }
@@ -0,0 +1,247 @@
+package svenmeier.coxswain.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A cache with primitive long keys, evicting least recently used values.
+ * <p>
+ * Lookups do not allocate: keys are held in an open addressing table, entries are linked in
+ * order of usage by index.
+ */
+public class LongLruCache<V> {
+
+	private static final int NONE = -1;
+
+	private final int maxSize;
+
+	private int size;
+
+	/**
+	 * Index of entry + 1 for each hashed key, {@code 0} if empty.
+	 */
+	private final int[] table;
+
+	private final long[] keys;
+
+	private final Object[] values;
+
+	private final int[] sizes;
+
+	private final int[] previous;
+
+	private final int[] next;
+
+	/**
+	 * Most recently used entry.
+	 */
+	private int head = NONE;
+
+	/**
+	 * Least recently used entry.
+	 */
+	private int tail = NONE;
+
+	/**
+	 * Free entries, linked by {@link #next}.
+	 */
+	private int free;
+
+	private int count;
+
+	/**
+	 * @param maxSize maximum sum of sizes of all values
+	 */
+	public LongLruCache(int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize must be positive");
+		}
+		this.maxSize = maxSize;
+
+		table = new int[Integer.highestOneBit(maxSize) * 4];
+
+		keys = new long[maxSize];
+		values = new Object[maxSize];
+		sizes = new int[maxSize];
+		previous = new int[maxSize];
+		next = new int[maxSize];
+
+		for (int e = 0; e < maxSize; e++) {
+			next[e] = e + 1 < maxSize ? e + 1 : NONE;
+		}
+		free = 0;
+	}
+
+	/**
+	 * Size of a value, at least {@code 1}.
+	 */
+	protected int sizeOf(long key, V value) {
+		return 1;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int count() {
+		return count;
+	}
+
+	/**
+	 * Get a value, marking it as most recently used.
+	 *
+	 * @return value or {@code null}
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		int entry = find(key);
+		if (entry == NONE) {
+			return null;
+		}
+
+		unlink(entry);
+		linkFirst(entry);
+
+		return (V) values[entry];
+	}
+
+	/**
+	 * Put a value, evicting least recently used values if needed.
+	 */
+	public void put(long key, V value) {
+		remove(key);
+
+		int valueSize = Math.max(1, sizeOf(key, value));
+		if (valueSize > maxSize) {
+			return;
+		}
+
+		while (size + valueSize > maxSize || free == NONE) {
+			removeEntry(tail);
+		}
+
+		int entry = free;
+		free = next[entry];
+
+		keys[entry] = key;
+		values[entry] = value;
+		sizes[entry] = valueSize;
+		linkFirst(entry);
+
+		int slot = slot(key);
+		while (table[slot] != 0) {
+			slot = (slot + 1) & (table.length - 1);
+		}
+		table[slot] = entry + 1;
+
+		size += valueSize;
+		count++;
+	}
+
+	/**
+	 * Remove a value.
+	 *
+	 * @return removed value or {@code null}
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key) {
+		int entry = find(key);
+		if (entry == NONE) {
+			return null;
+		}
+
+		V value = (V) values[entry];
+		removeEntry(entry);
+		return value;
+	}
+
+	public void clear() {
+		while (tail != NONE) {
+			removeEntry(tail);
+		}
+	}
+
+	/**
+	 * All values, from most to least recently used.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<V> values() {
+		List<V> list = new ArrayList<>(count);
+		for (int entry = head; entry != NONE; entry = next[entry]) {
+			list.add((V) values[entry]);
+		}
+		return list;
+	}
+
+	private int slot(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash >>> 32) & (table.length - 1);
+	}
+
+	private int find(long key) {
+		int slot = slot(key);
+		while (table[slot] != 0) {
+			int entry = table[slot] - 1;
+			if (keys[entry] == key) {
+				return entry;
+			}
+			slot = (slot + 1) & (table.length - 1);
+		}
+		return NONE;
+	}
+
+	private void removeEntry(int entry) {
+		int slot = slot(keys[entry]);
+		while (table[slot] != entry + 1) {
+			slot = (slot + 1) & (table.length - 1);
+		}
+		table[slot] = 0;
+
+		// shift following keys back to keep probe sequences intact
+		int empty = slot;
+		slot = (slot + 1) & (table.length - 1);
+		while (table[slot] != 0) {
+			int home = slot(keys[table[slot] - 1]);
+			if (((slot - home) & (table.length - 1)) >= ((slot - empty) & (table.length - 1))) {
+				table[empty] = table[slot];
+				table[slot] = 0;
+				empty = slot;
+			}
+			slot = (slot + 1) & (table.length - 1);
+		}
+
+		unlink(entry);
+
+		size -= sizes[entry];
+		count--;
+
+		values[entry] = null;
+		next[entry] = free;
+		free = entry;
+	}
+
+	private void linkFirst(int entry) {
+		previous[entry] = NONE;
+		next[entry] = head;
+		if (head != NONE) {
+			previous[head] = entry;
+		}
+		head = entry;
+		if (tail == NONE) {
+			tail = entry;
+		}
+	}
+
+	private void unlink(int entry) {
+		if (previous[entry] == NONE) {
+			head = next[entry];
+		} else {
+			next[previous[entry]] = next[entry];
+		}
+		if (next[entry] == NONE) {
+			tail = previous[entry];
+		} else {
+			previous[next[entry]] = previous[entry];
+		}
+	}
+}
@@ -31,7 +31,18 @@ public class BindingDialogFragment extends DialogFragment {
 			ValueBinding.SPLIT,
 			ValueBinding.AVERAGE_SPLIT,
 			ValueBinding.DELTA_DISTANCE,
-			ValueBinding.DELTA_DURATION);
+			ValueBinding.DELTA_DURATION,
+			ValueBinding.SPLIT_SHORT,
+			ValueBinding.SPLIT_LONG,
+			ValueBinding.DURATION_DISTANCE,
+			ValueBinding.SMOOTHED_SPEED,
+			ValueBinding.SMOOTHED_PULSE,
+			ValueBinding.SMOOTHED_STROKE_RATE,
+			ValueBinding.SEGMENT_AVERAGE_SPLIT,
+			ValueBinding.SEGMENT_MAX_SPEED,
+			ValueBinding.SEGMENT_AVERAGE_PULSE,
+			ValueBinding.SEGMENT_MAX_PULSE,
+			ValueBinding.SEGMENT_AVERAGE_STROKE_RATE);
 
 	@Override
 	public Dialog onCreateDialog(Bundle savedInstanceState) {
@@ -26,6 +26,7 @@ import svenmeier.coxswain.Gym;
 import svenmeier.coxswain.R;
 import svenmeier.coxswain.gym.Measurement;
 import svenmeier.coxswain.gym.Segment;
+import svenmeier.coxswain.gym.Statistics;
 
 /**
  */
@@ -134,10 +135,11 @@ public class BindingView extends FrameLayout {
         int limitStrokeRate = 0;
         int limitPulse = 0;
 
-        if (gym.progress != null) {
-            achieved = gym.progress.achieved();
+        Gym.Progress progress = gym.progress;
+        if (progress != null) {
+            achieved = progress.achieved();
 
-            Segment segment = gym.progress.segment;
+            Segment segment = progress.segment;
 
             targetDuration = segment.duration.get();
             targetDistance = segment.distance.get();
@@ -149,6 +151,7 @@ public class BindingView extends FrameLayout {
         }
 
         Measurement measurement = gym.measurement;
+        Statistics.Values statistics = gym.statistics;
 
         switch (binding) {
             case DURATION:
@@ -187,6 +190,39 @@ public class BindingView extends FrameLayout {
             case DELTA_DURATION:
                 delta(paceBoat.getDurationDelta(measurement), true);
                 break;
+            case SPLIT_SHORT:
+                split(100f / statistics.shortSpeed);
+                break;
+            case SPLIT_LONG:
+                split(100f / statistics.longSpeed);
+                break;
+            case DURATION_DISTANCE:
+                limit(statistics.distanceDuration, 0);
+                break;
+            case SMOOTHED_SPEED:
+                limit(statistics.smoothedSpeed, limitSpeed);
+                break;
+            case SMOOTHED_PULSE:
+                limit(statistics.smoothedPulse, limitPulse);
+                break;
+            case SMOOTHED_STROKE_RATE:
+                limit(statistics.smoothedStrokeRate, limitStrokeRate);
+                break;
+            case SEGMENT_AVERAGE_SPLIT:
+                split(100f / statistics.meanSpeed);
+                break;
+            case SEGMENT_MAX_SPEED:
+                limit(statistics.maxSpeed, 0);
+                break;
+            case SEGMENT_AVERAGE_PULSE:
+                limit(statistics.meanPulse, limitPulse);
+                break;
+            case SEGMENT_MAX_PULSE:
+                limit(statistics.maxPulse, 0);
+                break;
+            case SEGMENT_AVERAGE_STROKE_RATE:
+                limit(statistics.meanStrokeRate, limitStrokeRate);
+                break;
         }
     }
 
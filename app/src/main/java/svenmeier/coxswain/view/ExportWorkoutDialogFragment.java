@@ -11,6 +11,7 @@ import svenmeier.coxswain.io.Export;
 import svenmeier.coxswain.Gym;
 import svenmeier.coxswain.R;
 import svenmeier.coxswain.io.CalendarExport;
+import svenmeier.coxswain.garmin.TcxBatchExport;
 import svenmeier.coxswain.garmin.TcxExport;
 import svenmeier.coxswain.google.FitExport;
 import svenmeier.coxswain.gym.Workout;
@@ -25,7 +26,7 @@ public class ExportWorkoutDialogFragment extends DialogFragment {
 
 		AlertDialog.Builder builder = new AlertDialog.Builder(getActivity());
 
-		String[] exports = new String[]{getString(R.string.calendar_export), getString(R.string.garmin_export), getString(R.string.garmin_export_share), getString(R.string.googlefit_export)};
+		String[] exports = new String[]{getString(R.string.calendar_export), getString(R.string.garmin_export), getString(R.string.garmin_export_share), getString(R.string.garmin_export_batch), getString(R.string.googlefit_export)};
 
 		builder.setTitle(R.string.action_export)
 				.setItems(exports, new DialogInterface.OnClickListener() {
@@ -41,6 +42,9 @@ public class ExportWorkoutDialogFragment extends DialogFragment {
 								export = new TcxExport(getActivity(), true);
 								break;
 							case 3:
+								export = new TcxBatchExport(getActivity());
+								break;
+							case 4:
 								export = new FitExport(getActivity());
 								break;
 							default:
@@ -29,7 +29,9 @@ import android.widget.TextView;
 
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -37,16 +39,24 @@ import propoid.ui.list.MatchLookup;
 import propoid.util.content.Preference;
 import svenmeier.coxswain.Gym;
 import svenmeier.coxswain.R;
-import svenmeier.coxswain.gym.Workout;
+import svenmeier.coxswain.gym.DailySummary;
+import svenmeier.coxswain.util.LongLruCache;
 
 
-public class PerformanceFragment extends Fragment implements View.OnClickListener {
+public class PerformanceFragment extends Fragment implements View.OnClickListener, Gym.SummaryListener {
+
+    /**
+     * Maximum count of cached performances.
+     */
+    private static final int CACHE_SIZE = 512;
 
     private Gym gym;
 
     private List<Performance> pendings = new ArrayList<>();
 
-    private Map<String, Performance> performances = new HashMap<>();
+    private LongLruCache<Performance> performances = new LongLruCache<>(CACHE_SIZE);
+
+    private Map<Class<?>, Performance> maxima = new HashMap<>();
 
     private int highlight;
 
@@ -56,6 +66,13 @@ public class PerformanceFragment extends Fragment implements View.OnClickListene
 
     private PerformanceLookup lookup;
 
+    private Runnable startLookup = new Runnable() {
+        @Override
+        public void run() {
+            startLookup();
+        }
+    };
+
     private Preference<Long> windowPreference;
 
     @Override
@@ -96,33 +113,64 @@ public class PerformanceFragment extends Fragment implements View.OnClickListene
         timelineView.setWindow(windowPreference.get());
     }
 
-    private Performance getMax(Class<?> unit) {
-        String key = unit.getSimpleName();
+    @Override
+    public void onResume() {
+        super.onResume();
 
-        Performance performancestic = this.performances.get(key);
-        if (performancestic == null) {
-            performancestic = new Performance();
+        gym.addListener(this);
+    }
 
-            performances.put(key, performancestic);
+    @Override
+    public void onPause() {
+        gym.removeListener(this);
+
+        super.onPause();
+    }
+
+    @Override
+    public void changed() {
+    }
+
+    /**
+     * Lookup again all cached performances containing the summarized day.
+     */
+    @Override
+    public void summarized(long day) {
+        for (Performance performance : performances.values()) {
+            if (performance.from <= day && day < performance.to && pendings.contains(performance) == false) {
+                pendings.add(performance);
+            }
         }
 
-        return performancestic;
+        timelineView.postInvalidate();
+    }
+
+    private Performance getMax(Class<?> unit) {
+        Performance max = this.maxima.get(unit);
+        if (max == null) {
+            max = new Performance(unit, 0, 0);
+
+            maxima.put(unit, max);
+        }
+
+        return max;
     }
 
     private Performance getPerformance(Class<?> unit, long from, long to) {
-        String key = from + ":" + to;
+        long key = key(from, to);
 
         Performance performance = this.performances.get(key);
         if (performance == null) {
-            performance = new Performance();
+            performance = new Performance(unit, from, to);
 
             performances.put(key, performance);
             pendings.add(performance);
         }
 
-        if (pendings.contains(performance) && lookup == null) {
-            lookup = new PerformanceLookup(from, to, performance, getMax(unit));
-            lookup.restartLoader(0, this);
+        if (lookup == null && pendings.isEmpty() == false) {
+            // start after all visible periods are painted
+            timelineView.removeCallbacks(startLookup);
+            timelineView.post(startLookup);
         }
 
         performance.animation = Math.min(performance.animation + 0.05f, 1.0f);
@@ -133,6 +181,63 @@ public class PerformanceFragment extends Fragment implements View.OnClickListene
         return performance;
     }
 
+    /**
+     * Key of a period from its start and length in days, thus unique across all units.
+     */
+    private static long key(long from, long to) {
+        return (from << 6) | Math.round((to - from) / (double) TimelineView.DAY);
+    }
+
+    /**
+     * Start a single lookup for all pending performances of the same unit.
+     */
+    private void startLookup() {
+        if (lookup != null) {
+            return;
+        }
+
+        dropInvisible();
+        if (pendings.isEmpty()) {
+            return;
+        }
+
+        Class<?> unit = pendings.get(pendings.size() - 1).unit;
+
+        List<Performance> batch = new ArrayList<>();
+        long from = Long.MAX_VALUE;
+        long to = Long.MIN_VALUE;
+        for (Performance pending : pendings) {
+            if (pending.unit == unit) {
+                batch.add(pending);
+
+                from = Math.min(from, pending.from);
+                to = Math.max(to, pending.to);
+            }
+        }
+
+        lookup = new PerformanceLookup(from, to, batch, getMax(unit));
+        lookup.restartLoader(0, this);
+    }
+
+    /**
+     * Drop pending performances no longer visible, so a batch never spans more than the visible
+     * window - these are looked up again once painted.
+     */
+    private void dropInvisible() {
+        long to = timelineView.getTime();
+        long from = to - timelineView.getWindow();
+
+        Iterator<Performance> iterator = pendings.iterator();
+        while (iterator.hasNext()) {
+            Performance pending = iterator.next();
+            if (pending.to <= from || pending.from >= to) {
+                iterator.remove();
+
+                performances.remove(key(pending.from, pending.to));
+            }
+        }
+    }
+
     @Override
     public void onClick(View v) {
         highlight = (highlight + 1) % 4;
@@ -163,60 +268,102 @@ public class PerformanceFragment extends Fragment implements View.OnClickListene
 
     private class Performance {
 
+        final Class<?> unit;
+
+        final long from;
+
+        final long to;
+
         float animation;
 
+        /**
+         * Rendered header texts, {@link #whats} for each highlight.
+         */
+        String when;
+        final String[] whats = new String[4];
+
         public boolean found;
 
         public int duration;
         public int distance;
         public int strokes;
         public int energy;
+
+        Performance(Class<?> unit, long from, long to) {
+            this.unit = unit;
+            this.from = from;
+            this.to = to;
+        }
+
+        void reset() {
+            Arrays.fill(whats, null);
+
+            distance = 0;
+            strokes = 0;
+            energy = 0;
+            duration = 0;
+            found = false;
+        }
+
+        void add(DailySummary summary) {
+            distance += summary.distance.get();
+            strokes += summary.strokes.get();
+            energy += summary.energy.get();
+            duration += summary.duration.get();
+            found = true;
+        }
     }
 
-    private class PerformanceLookup extends MatchLookup<Workout> {
+    /**
+     * Lookup of performances with a single range query, rolled up from daily summaries.
+     */
+    private class PerformanceLookup extends MatchLookup<DailySummary> {
 
-        private final Performance pending;
+        private final List<Performance> batch;
 
         private final Performance max;
 
-        public PerformanceLookup(long from, long to, Performance pending, Performance max) {
-            super(gym.getWorkouts(from, to));
+        public PerformanceLookup(long from, long to, List<Performance> batch, Performance max) {
+            super(gym.getSummaries(from, to));
 
-            this.pending = pending;
+            this.batch = batch;
             this.max = max;
         }
 
         @Override
-        protected void onLookup(List<Workout> workouts) {
+        protected void onLookup(List<DailySummary> summaries) {
             // reset in case the lookup is done twice
-            pending.distance = 0;
-            pending.strokes = 0;
-            pending.energy = 0;
-            pending.duration = 0;
-            pending.found = false;
-
-            for (Workout workout : workouts) {
-                pending.distance += workout.distance.get();
-                pending.strokes += workout.strokes.get();
-                pending.energy += workout.energy.get();
-                pending.duration += workout.duration.get();
-                pending.found = true;
+            for (Performance pending : batch) {
+                pending.reset();
+            }
+
+            for (DailySummary summary : summaries) {
+                long day = summary.day.get();
+
+                for (Performance pending : batch) {
+                    if (pending.from <= day && day < pending.to) {
+                        pending.add(summary);
+                        break;
+                    }
+                }
             }
 
-            max.distance = Math.max(max.distance, pending.distance);
-            max.strokes = Math.max(max.strokes, pending.strokes);
-            max.energy = Math.max(max.energy, pending.energy);
-            max.duration = Math.max(max.duration, pending.duration);
+            for (Performance pending : batch) {
+                max.distance = Math.max(max.distance, pending.distance);
+                max.strokes = Math.max(max.strokes, pending.strokes);
+                max.energy = Math.max(max.energy, pending.energy);
+                max.duration = Math.max(max.duration, pending.duration);
+            }
 
             timelineView.postInvalidate();
 
             // no longer pending
-            pendings.remove(pending);
+            pendings.removeAll(batch);
 
             lookup = null;
 
             // recover cursor
-            workouts.clear();
+            summaries.clear();
         }
     }
 
@@ -230,6 +377,10 @@ public class PerformanceFragment extends Fragment implements View.OnClickListene
 
         private float padding = Utils.dpToPx(getActivity(), 4);
 
+        private TimelineView.Unit month = new TimelineView.MonthUnit(0);
+        private TimelineView.Unit week = new TimelineView.WeekUnit(0);
+        private TimelineView.Unit day = new TimelineView.DayUnit(0);
+
         @Override
         public long min() {
             return 0;
@@ -254,11 +405,11 @@ public class PerformanceFragment extends Fragment implements View.OnClickListene
         public TimelineView.Unit unit(long time, long window) {
             long windowDays = window / TimelineView.DAY;
             if (windowDays > 60) {
-                return new TimelineView.MonthUnit(time);
+                return month.at(time);
             } else if (windowDays > 10) {
-                return new TimelineView.WeekUnit(time);
+                return week.at(time);
             } else {
-                return new TimelineView.DayUnit(time);
+                return day.at(time);
             }
         }
 
@@ -284,22 +435,10 @@ public class PerformanceFragment extends Fragment implements View.OnClickListene
             paint.getFontMetrics(metrics);
 
             if (performance.found) {
-                String what;
-                switch (highlight) {
-                    case 0:
-                        what = String.format(getString(R.string.duration_minutes), performance.duration / 60);
-                        break;
-                    case 1:
-                        what = String.format(getString(R.string.distance_meters), performance.distance);
-                        break;
-                    case 2:
-                        what = String.format(getString(R.string.strokes_count), performance.strokes);
-                        break;
-                    case 3:
-                        what = String.format(getString(R.string.energy_calories), performance.energy);
-                        break;
-                    default:
-                        throw new IndexOutOfBoundsException();
+                String what = performance.whats[highlight];
+                if (what == null) {
+                    what = describe(performance);
+                    performance.whats[highlight] = what;
                 }
                 float whatWidth = paint.measureText(what);
 
@@ -307,14 +446,31 @@ public class PerformanceFragment extends Fragment implements View.OnClickListene
                 canvas.drawText(what, rect.right - padding - whatWidth, rect.top + padding - metrics.top, paint);
             }
 
-            String when = DateUtils.formatDateRange(getActivity(), from, to, DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_ABBREV_ALL);
+            if (performance.when == null) {
+                performance.when = DateUtils.formatDateRange(getActivity(), from, to, DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_ABBREV_ALL);
+            }
             paint.setColor(timelineView.getForegroundColor());
             paint.setTextSize(textSize);
-            canvas.drawText(when, rect.left + padding, rect.top + padding - metrics.top, paint);
+            canvas.drawText(performance.when, rect.left + padding, rect.top + padding - metrics.top, paint);
 
             return -metrics.top;
         }
 
+        private String describe(Performance performance) {
+            switch (highlight) {
+                case 0:
+                    return String.format(getString(R.string.duration_minutes), performance.duration / 60);
+                case 1:
+                    return String.format(getString(R.string.distance_meters), performance.distance);
+                case 2:
+                    return String.format(getString(R.string.strokes_count), performance.strokes);
+                case 3:
+                    return String.format(getString(R.string.energy_calories), performance.energy);
+                default:
+                    throw new IndexOutOfBoundsException();
+            }
+        }
+
         private void paintBar(int value, int max, float animation, Canvas canvas, RectF rect, int index) {
 			paint.setStyle(Paint.Style.FILL);
 			if (index == highlight) {
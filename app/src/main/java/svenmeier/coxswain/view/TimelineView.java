@@ -94,6 +94,13 @@ public class TimelineView extends View {
         return window;
     }
 
+    /**
+     * Time at the bottom, i.e. end of the visible window.
+     */
+    public long getTime() {
+        return time;
+    }
+
     @Override
     public Parcelable onSaveInstanceState() {
 
@@ -318,6 +325,9 @@ public class TimelineView extends View {
 
         long max();
 
+        /**
+         * Get the unit for the given time, preferably reusing units with {@link Unit#at(long)}.
+         */
         Unit unit(long time, long window);
 
         void paint(Class<?> unit, long from, long to, Canvas canvas, RectF rect);
@@ -329,6 +339,8 @@ public class TimelineView extends View {
 
     public class DefaultPeriods implements Periods {
 
+        private Unit day = new DayUnit(0);
+
         @Override
         public long min() {
             return 0;
@@ -351,7 +363,7 @@ public class TimelineView extends View {
 
         @Override
         public Unit unit(long time, long window) {
-            return new DayUnit(time);
+            return day.at(time);
         }
 
         @Override
@@ -373,6 +385,13 @@ public class TimelineView extends View {
 
         long to;
 
+        /**
+         * Move to the given time, reusing the calendar.
+         *
+         * @return this unit
+         */
+        public abstract Unit at(long time);
+
         abstract void next();
     }
 
@@ -385,6 +404,11 @@ public class TimelineView extends View {
         public SecondUnit(long time, int mod) {
             this.mod = mod;
 
+            at(time);
+        }
+
+        @Override
+        public Unit at(long time) {
             calendar.setTimeInMillis(time);
             int second = calendar.get(Calendar.SECOND);
             calendar.set(Calendar.SECOND, second - (second % mod));
@@ -393,6 +417,8 @@ public class TimelineView extends View {
             floor = calendar.getTimeInMillis();
             calendar.add(Calendar.SECOND, mod);
             ceiling = calendar.getTimeInMillis();
+
+            return this;
         }
 
         @Override
@@ -412,6 +438,11 @@ public class TimelineView extends View {
         public MinuteUnit(long time, int mod) {
             this.mod = mod;
 
+            at(time);
+        }
+
+        @Override
+        public Unit at(long time) {
             calendar.setTimeInMillis(time);
             int minute = calendar.get(Calendar.MINUTE);
             calendar.set(Calendar.MINUTE, minute - (minute % mod));
@@ -421,6 +452,8 @@ public class TimelineView extends View {
             floor = calendar.getTimeInMillis();
             calendar.add(Calendar.MINUTE, mod);
             ceiling = calendar.getTimeInMillis();
+
+            return this;
         }
 
         @Override
@@ -440,6 +473,11 @@ public class TimelineView extends View {
         public HourUnit(long time, int mod) {
             this.mod = mod;
 
+            at(time);
+        }
+
+        @Override
+        public Unit at(long time) {
             calendar.setTimeInMillis(time);
             int hour = calendar.get(Calendar.HOUR);
             calendar.set(Calendar.HOUR, hour - (hour % mod));
@@ -450,6 +488,8 @@ public class TimelineView extends View {
             floor = calendar.getTimeInMillis();
             calendar.add(Calendar.HOUR, 1);
             ceiling = calendar.getTimeInMillis();
+
+            return this;
         }
 
         @Override
@@ -469,6 +509,11 @@ public class TimelineView extends View {
         public DayUnit(long time, int mod) {
             this.mod = mod;
 
+            at(time);
+        }
+
+        @Override
+        public Unit at(long time) {
             calendar.setTimeInMillis(time);
             int day = calendar.get(Calendar.DAY_OF_YEAR);
             calendar.set(Calendar.DAY_OF_YEAR, day - (day % mod));
@@ -480,6 +525,8 @@ public class TimelineView extends View {
             floor = calendar.getTimeInMillis();
             calendar.add(Calendar.DATE, 1);
             ceiling = calendar.getTimeInMillis();
+
+            return this;
         }
 
         @Override
@@ -495,6 +542,11 @@ public class TimelineView extends View {
         public WeekUnit(long time) {
             this.mod = 7;
 
+            at(time);
+        }
+
+        @Override
+        public Unit at(long time) {
             calendar.setTimeInMillis(time);
             calendar.set(Calendar.DAY_OF_WEEK, calendar.getFirstDayOfWeek());
             calendar.set(Calendar.HOUR_OF_DAY, 0);
@@ -505,6 +557,8 @@ public class TimelineView extends View {
             floor = calendar.getTimeInMillis();
             calendar.add(Calendar.DATE, 7);
             ceiling = calendar.getTimeInMillis();
+
+            return this;
         }
 
         @Override
@@ -520,6 +574,11 @@ public class TimelineView extends View {
         public MonthUnit(long time) {
             this.mod = 1;
 
+            at(time);
+        }
+
+        @Override
+        public Unit at(long time) {
             calendar.setTimeInMillis(time);
             calendar.set(Calendar.DAY_OF_MONTH, 1);
             calendar.set(Calendar.HOUR_OF_DAY, 0);
@@ -530,6 +589,8 @@ public class TimelineView extends View {
             floor = calendar.getTimeInMillis();
             calendar.add(Calendar.MONTH, 1);
             ceiling = calendar.getTimeInMillis();
+
+            return this;
         }
 
         @Override
@@ -20,6 +20,17 @@ public enum ValueBinding {
 	AVERAGE_SPLIT(R.string.average_split_label, R.string.average_split_pattern),
 	DELTA_DURATION(R.string.delta_duration_label, R.string.delta_duration_pattern),
 	DELTA_DISTANCE(R.string.delta_distance_label, R.string.delta_distance_pattern),
+	SPLIT_SHORT(R.string.split_short_label, R.string.split_pattern),
+	SPLIT_LONG(R.string.split_long_label, R.string.split_pattern),
+	DURATION_DISTANCE(R.string.duration_distance_label, R.string.duration_short_pattern),
+	SMOOTHED_SPEED(R.string.smoothed_speed_label, R.string.speed_pattern),
+	SMOOTHED_PULSE(R.string.smoothed_pulse_label, R.string.pulse_pattern),
+	SMOOTHED_STROKE_RATE(R.string.smoothed_strokeRate_label, R.string.strokeRate_pattern),
+	SEGMENT_AVERAGE_SPLIT(R.string.segment_average_split_label, R.string.split_pattern),
+	SEGMENT_MAX_SPEED(R.string.segment_max_speed_label, R.string.speed_pattern),
+	SEGMENT_AVERAGE_PULSE(R.string.segment_average_pulse_label, R.string.pulse_pattern),
+	SEGMENT_MAX_PULSE(R.string.segment_max_pulse_label, R.string.pulse_pattern),
+	SEGMENT_AVERAGE_STROKE_RATE(R.string.segment_average_strokeRate_label, R.string.strokeRate_pattern),
 	NONE(R.string.none_label, R.string.none_pattern);
 
 	public final int label;
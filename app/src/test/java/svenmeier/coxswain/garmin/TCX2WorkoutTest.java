@@ -1,7 +1,5 @@
 package svenmeier.coxswain.garmin;
 
-import android.util.Pair;
-
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricGradleTestRunner;
@@ -10,11 +8,10 @@ import org.robolectric.annotation.Config;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.StringReader;
 import java.text.ParseException;
-import java.util.ArrayList;
-import java.util.List;
 
-import svenmeier.coxswain.gym.Snapshot;
+import svenmeier.coxswain.gym.SnapshotSeries;
 import svenmeier.coxswain.gym.Workout;
 
 import static org.junit.Assert.assertEquals;
@@ -37,36 +34,129 @@ public class TCX2WorkoutTest {
 		Workout workout = to.getWorkout();
 
 		assertEquals(Mon_Jun_15_2015 + (60 * 1000), (long)workout.start.get());
-		assertEquals(3, (int)workout.duration.get());
+		assertEquals(2, (int)workout.duration.get());
 		assertEquals(6, (int)workout.distance.get());
 		assertEquals(2, (int)workout.strokes.get());
 		assertEquals(3, (int)workout.energy.get());
 
-		List<Snapshot> snapshots = to.getSnapshots();
+		SnapshotSeries series = to.getSeries();
 
-		assertEquals(3, snapshots.size());
+		assertEquals(3, series.size());
 
-		Snapshot snapshot = snapshots.get(0);
-		assertEquals(4_50, (int)snapshot.speed.get());
-		assertEquals(80, (int)snapshot.pulse.get());
-		assertEquals(25, (int)snapshot.strokeRate.get());
-		assertEquals(2, (int)snapshot.distance.get());
-		assertEquals(0, (int)snapshot.strokes.get()); // trackpoints do not have steps
+		assertEquals(4_50, series.speed[0]);
+		assertEquals(80, series.pulse[0]);
+		assertEquals(25, series.strokeRate[0]);
+		assertEquals(2, series.distance[0]);
+		assertEquals(0, series.strokes[0]); // trackpoints do not have steps
+		assertEquals(0, series.offset[0]);
 
-		snapshot = snapshots.get(1);
-		assertEquals(4_51, (int)snapshot.speed.get());
-		assertEquals(81, (int)snapshot.pulse.get());
-		assertEquals(26, (int)snapshot.strokeRate.get());
-		assertEquals(4, (int)snapshot.distance.get());
-		assertEquals(0, (int)snapshot.strokes.get()); // trackpoints do not have steps
+		assertEquals(4_51, series.speed[1]);
+		assertEquals(81, series.pulse[1]);
+		assertEquals(26, series.strokeRate[1]);
+		assertEquals(4, series.distance[1]);
+		assertEquals(0, series.strokes[1]); // trackpoints do not have steps
+		assertEquals(1000, series.offset[1]);
 
-		snapshot = snapshots.get(2);
-		assertEquals(4_52, (int)snapshot.speed.get());
-		assertEquals(82, (int)snapshot.pulse.get());
-		assertEquals(27, (int)snapshot.strokeRate.get());
-		assertEquals(6, (int)snapshot.distance.get());
-		assertEquals(0, (int)snapshot.strokes.get()); // trackpoints do not have steps
+		assertEquals(4_52, series.speed[2]);
+		assertEquals(82, series.pulse[2]);
+		assertEquals(27, series.strokeRate[2]);
+		assertEquals(6, series.distance[2]);
+		assertEquals(0, series.strokes[2]); // trackpoints do not have steps
+		assertEquals(2000, series.offset[2]);
 
 		assertEquals("Test Program", to.getProgramName());
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void laps() throws IOException, ParseException {
+		String tcx = "<?xml version=\"1.0\"?>\n" +
+				"<!-- exported by a device -->\n" +
+				"<ns:TrainingCenterDatabase xmlns:ns=\"http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v2\">\n" +
+				" <ns:Activities><ns:Activity Sport=\"Other\">\n" +
+				"  <ns:Creator><ns:Name>Device</ns:Name></ns:Creator>\n" +
+				"  <ns:Lap StartTime=\"2015-06-15T02:01:00+02:00\">\n" +
+				"   <ns:TotalTimeSeconds>60</ns:TotalTimeSeconds><ns:DistanceMeters> 100.4 </ns:DistanceMeters><ns:Calories>10</ns:Calories>\n" +
+				"   <ns:Track><ns:Trackpoint>\n" +
+				"    <ns:Time>2015-06-15T00:01:00Z</ns:Time>\n" +
+				"    <ns:Position><ns:LatitudeDegrees>1.5</ns:LatitudeDegrees><ns:LongitudeDegrees>2.5</ns:LongitudeDegrees></ns:Position>\n" +
+				"    <ns:DistanceMeters>1.6</ns:DistanceMeters><ns:Cadence/>\n" +
+				"    <ns:Extensions><TPX xmlns=\"x\"><Speed>4.505</Speed></TPX></ns:Extensions>\n" +
+				"   </ns:Trackpoint></ns:Track>\n" +
+				"  </ns:Lap>\n" +
+				"  <ns:Lap StartTime=\"2015-06-15T00:02:00Z\">\n" +
+				"   <ns:TotalTimeSeconds>30.6</ns:TotalTimeSeconds><ns:DistanceMeters>200</ns:DistanceMeters><ns:Calories>20</ns:Calories>\n" +
+				"   <ns:Track><ns:Trackpoint>\n" +
+				"    <ns:Time>2015-06-15T00:02:00.5Z</ns:Time>\n" +
+				"    <ns:DistanceMeters>101</ns:DistanceMeters>\n" +
+				"    <ns:HeartRateBpm><ns:Value>90</ns:Value></ns:HeartRateBpm>\n" +
+				"   </ns:Trackpoint></ns:Track>\n" +
+				"  </ns:Lap>\n" +
+				"  <ns:Training><ns:Plan><ns:Name>A &amp; B</ns:Name></ns:Plan></ns:Training>\n" +
+				" </ns:Activity></ns:Activities>\n" +
+				"</ns:TrainingCenterDatabase>";
+
+		TCX2Workout to = new TCX2Workout(new StringReader(tcx)).workout();
+
+		Workout workout = to.getWorkout();
+		assertEquals(Mon_Jun_15_2015 + (60 * 1000), (long)workout.start.get());
+		assertEquals(91, (int)workout.duration.get());
+		assertEquals(300, (int)workout.distance.get());
+		assertEquals(30, (int)workout.energy.get());
+		assertEquals(1.5d, workout.location.get().getLatitude(), 0d);
+		assertEquals(2.5d, workout.location.get().getLongitude(), 0d);
+
+		SnapshotSeries series = to.getSeries();
+		assertEquals(2, series.size());
+
+		assertEquals(0, series.offset[0]);
+		assertEquals(2, series.distance[0]);
+		assertEquals(4_51, series.speed[0]);
+		assertEquals(0, series.strokeRate[0]);
+
+		assertEquals(60500, series.offset[1]);
+		assertEquals(101, series.distance[1]);
+		assertEquals(90, series.pulse[1]);
+		assertEquals(0, series.speed[1]);
+
+		assertEquals("A & B", to.getProgramName());
+	}
+
+	@Test(expected = ParseException.class)
+	public void noLap() throws IOException, ParseException {
+		new TCX2Workout(new StringReader("<TrainingCenterDatabase><Activities><Activity></Activity></Activities></TrainingCenterDatabase>")).workout();
+	}
+
+	@Test
+	public void positionOfLaterTrackpoint() throws IOException, ParseException {
+		String tcx = "<TrainingCenterDatabase><Activities><Activity>" +
+				"<Lap StartTime=\"2015-06-15T02:01:00+0200\"><Track>" +
+				"<Trackpoint><Time>2015-06-15T00:01:00Z</Time></Trackpoint>" +
+				"<Trackpoint><Time>2015-06-15T00:01:01Z</Time><Position><LatitudeDegrees>1.5</LatitudeDegrees><LongitudeDegrees>2.5</LongitudeDegrees></Position></Trackpoint>" +
+				"<Trackpoint><Time>2015-06-15T00:01:02Z</Time><Position><LatitudeDegrees>3.5</LatitudeDegrees><LongitudeDegrees>4.5</LongitudeDegrees></Position></Trackpoint>" +
+				"</Track></Lap></Activity></Activities></TrainingCenterDatabase>";
+
+		TCX2Workout to = new TCX2Workout(new StringReader(tcx)).workout();
+
+		Workout workout = to.getWorkout();
+		// time zone without colon
+		assertEquals(Mon_Jun_15_2015 + (60 * 1000), (long)workout.start.get());
+		assertEquals(1.5d, workout.location.get().getLatitude(), 0d);
+		assertEquals(2.5d, workout.location.get().getLongitude(), 0d);
+	}
+
+	@Test
+	public void durationOfTrackpoints() throws IOException, ParseException {
+		String tcx = "<TrainingCenterDatabase><Activities><Activity>" +
+				"<Lap StartTime=\"2015-06-15T00:01:00Z\"><Track>" +
+				"<Trackpoint><Time>2015-06-15T00:01:00Z</Time></Trackpoint>" +
+				"<Trackpoint><Time>2015-06-15T00:01:00.250Z</Time></Trackpoint>" +
+				"<Trackpoint><Time>2015-06-15T00:02:00.500Z</Time></Trackpoint>" +
+				"</Track></Lap></Activity></Activities></TrainingCenterDatabase>";
+
+		TCX2Workout to = new TCX2Workout(new StringReader(tcx)).workout();
+
+		// without total time of laps
+		assertEquals(60, (int)to.getWorkout().duration.get());
+		assertEquals(3, to.getSeries().size());
+	}
+}
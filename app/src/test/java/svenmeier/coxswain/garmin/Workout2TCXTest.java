@@ -7,17 +7,16 @@ import org.robolectric.RobolectricGradleTestRunner;
 import org.robolectric.annotation.Config;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.StringWriter;
-import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.List;
 import java.util.TimeZone;
 
 import svenmeier.coxswain.gym.Program;
 import svenmeier.coxswain.gym.Snapshot;
+import svenmeier.coxswain.gym.SnapshotSeries;
 import svenmeier.coxswain.gym.Workout;
 
 import static org.junit.Assert.assertEquals;
@@ -41,13 +40,13 @@ public class Workout2TCXTest {
 		workout.strokes.set(2);
 		workout.energy.set(3);
 
-		List<Snapshot> snapshots = new ArrayList<>();
+		SnapshotSeries snapshots = new SnapshotSeries();
 
-		StringWriter writer = new StringWriter();
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
 
-		new Workout2TCX(writer).document(workout, snapshots);
+		new Workout2TCX(output).document(workout, snapshots);
 
-		assertContent(getClass().getResourceAsStream("/empty.tcx"), writer.toString());
+		assertContent(getClass().getResourceAsStream("/empty.tcx"), output.toString("UTF-8"));
 	}
 
 	@Test
@@ -63,7 +62,7 @@ public class Workout2TCXTest {
 		workout.strokes.set(2);
 		workout.energy.set(3);
 
-		List<Snapshot> snapshots = new ArrayList<>();
+		SnapshotSeries snapshots = new SnapshotSeries();
 
 		Snapshot snapshot = new Snapshot();
 		snapshot.speed.set(4_50);
@@ -71,6 +70,7 @@ public class Workout2TCXTest {
 		snapshot.strokeRate.set(25);
 		snapshot.distance.set(2);
 		snapshot.strokes.set(0);
+		snapshot.offset.set(0);
 		snapshots.add(snapshot);
 
 		snapshot = new Snapshot();
@@ -79,6 +79,7 @@ public class Workout2TCXTest {
 		snapshot.strokeRate.set(26);
 		snapshot.distance.set(4);
 		snapshot.strokes.set(1);
+		snapshot.offset.set(1000);
 		snapshots.add(snapshot);
 
 		snapshot = new Snapshot();
@@ -87,13 +88,14 @@ public class Workout2TCXTest {
 		snapshot.strokeRate.set(27);
 		snapshot.distance.set(6);
 		snapshot.strokes.set(2);
+		snapshot.offset.set(2000);
 		snapshots.add(snapshot);
 
-		StringWriter writer = new StringWriter();
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
 
-		new Workout2TCX(writer).document(workout, snapshots);
+		new Workout2TCX(output).document(workout, snapshots);
 
-		assertContent(getClass().getResourceAsStream("/snapshots.tcx"), writer.toString());
+		assertContent(getClass().getResourceAsStream("/snapshots.tcx"), output.toString("UTF-8"));
 	}
 
 	private void assertContent(InputStream input, String actual) throws IOException {
@@ -0,0 +1,86 @@
+package svenmeier.coxswain.google;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Test for {@link BoundedInsert}.
+ */
+public class BoundedInsertTest {
+
+	@Test
+	public void insertAll() throws InterruptedException {
+		List<Integer> items = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			items.add(i);
+		}
+
+		FakeInserter inserter = new FakeInserter(-1);
+		assertTrue(new BoundedInsert<Integer>(3).insertAll(items, inserter));
+
+		Collections.sort(inserter.inserted);
+		assertEquals(items, inserter.inserted);
+		assertTrue(inserter.maxConcurrent.get() <= 3);
+		assertTrue(inserter.maxConcurrent.get() > 1);
+	}
+
+	@Test
+	public void failure() throws InterruptedException {
+		List<Integer> items = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			items.add(i);
+		}
+
+		FakeInserter inserter = new FakeInserter(5);
+		assertFalse(new BoundedInsert<Integer>(2).insertAll(items, inserter));
+
+		assertTrue(inserter.inserted.size() < 100);
+	}
+
+	/**
+	 * Fake of a blocking remote insert.
+	 */
+	private static class FakeInserter implements BoundedInsert.Inserter<Integer> {
+
+		private final int failing;
+
+		private final AtomicInteger concurrent = new AtomicInteger();
+
+		final AtomicInteger maxConcurrent = new AtomicInteger();
+
+		final List<Integer> inserted = Collections.synchronizedList(new ArrayList<Integer>());
+
+		FakeInserter(int failing) {
+			this.failing = failing;
+		}
+
+		@Override
+		public boolean insert(Integer item) throws Exception {
+			int current = concurrent.incrementAndGet();
+			while (true) {
+				int max = maxConcurrent.get();
+				if (current <= max || maxConcurrent.compareAndSet(max, current)) {
+					break;
+				}
+			}
+
+			Thread.sleep(10);
+
+			concurrent.decrementAndGet();
+
+			if (item == failing) {
+				return false;
+			}
+			inserted.add(item);
+			return true;
+		}
+	}
+}
@@ -10,13 +10,13 @@ import org.robolectric.RobolectricGradleTestRunner;
 import org.robolectric.annotation.Config;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 import svenmeier.coxswain.gym.Snapshot;
+import svenmeier.coxswain.gym.SnapshotSeries;
 import svenmeier.coxswain.gym.Workout;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test for {@link Workout2Fit}.
@@ -36,7 +36,7 @@ public class Workout2FitTest {
 		workout.strokes.set(2);
 		workout.energy.set(3);
 
-		List<Snapshot> snapshots = new ArrayList<>();
+		SnapshotSeries snapshots = new SnapshotSeries();
 
 		Snapshot snapshot = new Snapshot();
 		snapshot.speed.set(4_50);
@@ -44,6 +44,7 @@ public class Workout2FitTest {
 		snapshot.strokeRate.set(25);
 		snapshot.distance.set(2);
 		snapshot.strokes.set(0);
+		snapshot.offset.set(0);
 		snapshots.add(snapshot);
 
 		snapshot = new Snapshot();
@@ -52,6 +53,7 @@ public class Workout2FitTest {
 		snapshot.strokeRate.set(26);
 		snapshot.distance.set(4);
 		snapshot.strokes.set(1);
+		snapshot.offset.set(1000);
 		snapshots.add(snapshot);
 
 		snapshot = new Snapshot();
@@ -60,6 +62,7 @@ public class Workout2FitTest {
 		snapshot.strokeRate.set(27);
 		snapshot.distance.set(6);
 		snapshot.strokes.set(2);
+		snapshot.offset.set(2000);
 		snapshots.add(snapshot);
 
 		Workout2Fit workout2Fit = new Workout2Fit();
@@ -68,4 +71,35 @@ public class Workout2FitTest {
 
 		}
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void chunks() {
+		Workout workout = new Workout();
+		workout.start.set(Mon_Jun_15_2015);
+		workout.duration.set(2500);
+		workout.distance.set(10000);
+		workout.energy.set(100);
+
+		SnapshotSeries snapshots = new SnapshotSeries();
+		for (int index = 0; index < 2500; index++) {
+			Snapshot snapshot = new Snapshot();
+			snapshot.speed.set(4_50);
+			snapshot.pulse.set(80);
+			snapshot.offset.set(index * 1000);
+			snapshots.add(snapshot);
+		}
+
+		int dataSets = 0;
+		int dataPoints = 0;
+		for (DataSet dataSet : new Workout2Fit().dataSets(workout, snapshots)) {
+			assertTrue(dataSet.getDataPoints().size() <= Workout2Fit.MAX_DATAPOINTS);
+
+			dataSets++;
+			dataPoints += dataSet.getDataPoints().size();
+		}
+
+		// distance and calories, 3 chunks each for speed and pulse
+		assertEquals(2 + 3 + 3, dataSets);
+		assertEquals(2 + 2500 + 2500, dataPoints);
+	}
+}
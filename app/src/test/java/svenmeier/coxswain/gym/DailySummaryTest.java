@@ -0,0 +1,48 @@
+package svenmeier.coxswain.gym;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * Test for {@link DailySummary}.
+ */
+public class DailySummaryTest {
+
+	@Test
+	public void add() {
+		DailySummary summary = new DailySummary(0);
+
+		Workout workout = new Workout();
+		workout.duration.set(60);
+		workout.distance.set(200);
+		workout.strokes.set(20);
+		workout.energy.set(10);
+
+		summary.add(workout);
+		summary.add(workout);
+
+		assertEquals(Integer.valueOf(2), summary.count.get());
+		assertEquals(Integer.valueOf(120), summary.duration.get());
+		assertEquals(Integer.valueOf(400), summary.distance.get());
+		assertEquals(Integer.valueOf(40), summary.strokes.get());
+		assertEquals(Integer.valueOf(20), summary.energy.get());
+	}
+
+	@Test
+	public void days() {
+		Calendar calendar = Calendar.getInstance();
+		calendar.set(2016, Calendar.MARCH, 31, 0, 0, 0);
+		calendar.set(Calendar.MILLISECOND, 0);
+		long day = calendar.getTimeInMillis();
+
+		calendar.set(Calendar.HOUR_OF_DAY, 23);
+		assertEquals(day, DailySummary.dayOf(day));
+		assertEquals(day, DailySummary.dayOf(calendar.getTimeInMillis()));
+
+		calendar.set(2016, Calendar.APRIL, 1, 0, 0, 0);
+		assertEquals(calendar.getTimeInMillis(), DailySummary.nextDay(day));
+	}
+}
@@ -0,0 +1,103 @@
+package svenmeier.coxswain.gym;
+
+import org.junit.Test;
+
+import java.util.Iterator;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+
+/**
+ * Test for {@link SnapshotCodec}.
+ */
+public class SnapshotCodecTest {
+
+	@Test
+	public void roundtrip() {
+		SnapshotCodec.Encoder encoder = new SnapshotCodec.Encoder();
+
+		for (int s = 0; s < 1000; s++) {
+			encoder.append(snapshot(s));
+		}
+		assertEquals(1000, encoder.count());
+
+		byte[] bytes = encoder.toBytes();
+		// one byte per value mostly
+		assertEquals(true, bytes.length < 1000 * SnapshotCodec.VALUES * 2);
+
+		Iterator<Snapshot> decoder = new SnapshotCodec.Decoder(bytes, encoder.count());
+		for (int s = 0; s < 1000; s++) {
+			Snapshot expected = snapshot(s);
+			Snapshot snapshot = decoder.next();
+
+			assertEquals(expected.distance.get(), snapshot.distance.get());
+			assertEquals(expected.strokes.get(), snapshot.strokes.get());
+			assertEquals(expected.speed.get(), snapshot.speed.get());
+			assertEquals(expected.pulse.get(), snapshot.pulse.get());
+			assertEquals(expected.strokeRate.get(), snapshot.strokeRate.get());
+			assertEquals(expected.strokeRatio.get(), snapshot.strokeRatio.get());
+			assertEquals(expected.energy.get(), snapshot.energy.get());
+			assertEquals(expected.offset.get(), snapshot.offset.get());
+		}
+		assertFalse(decoder.hasNext());
+	}
+
+	@Test
+	public void extremes() {
+		Snapshot snapshot = new Snapshot();
+		snapshot.distance.set(Integer.MAX_VALUE);
+		snapshot.speed.set(Integer.MIN_VALUE);
+		snapshot.pulse.set(-1);
+
+		SnapshotCodec.Encoder encoder = new SnapshotCodec.Encoder();
+		encoder.append(snapshot);
+		encoder.append(new Snapshot());
+
+		Iterator<Snapshot> decoder = new SnapshotCodec.Decoder(encoder.toBytes(), 2);
+		Snapshot decoded = decoder.next();
+		assertEquals(Integer.valueOf(Integer.MAX_VALUE), decoded.distance.get());
+		assertEquals(Integer.valueOf(Integer.MIN_VALUE), decoded.speed.get());
+		assertEquals(Integer.valueOf(-1), decoded.pulse.get());
+
+		decoded = decoder.next();
+		assertEquals(Integer.valueOf(0), decoded.distance.get());
+		assertEquals(Integer.valueOf(0), decoded.speed.get());
+		assertEquals(Integer.valueOf(0), decoded.pulse.get());
+	}
+
+	@Test
+	public void series() {
+		SnapshotCodec.Encoder encoder = new SnapshotCodec.Encoder();
+		for (int s = 0; s < 100; s++) {
+			encoder.append(snapshot(s));
+		}
+
+		SnapshotSeries series = new SnapshotSeries(0);
+		new SnapshotCodec.Decoder(encoder.toBytes(), encoder.count()).decodeInto(series);
+
+		assertEquals(100, series.size());
+		for (int s = 0; s < 100; s++) {
+			Snapshot expected = snapshot(s);
+
+			assertEquals(expected.distance.get().intValue(), series.distance[s]);
+			assertEquals(expected.speed.get().intValue(), series.speed[s]);
+			assertEquals(expected.energy.get().intValue(), series.energy[s]);
+			assertEquals(expected.offset.get().intValue(), series.offset[s]);
+		}
+		assertEquals(400, series.min(series.speed));
+		assertEquals(460, series.max(series.speed));
+	}
+
+	private Snapshot snapshot(int s) {
+		Snapshot snapshot = new Snapshot();
+		snapshot.distance.set(s * 4);
+		snapshot.strokes.set(s / 3);
+		snapshot.speed.set(400 + (s % 7) * 10);
+		snapshot.pulse.set(120 + (s % 20));
+		snapshot.strokeRate.set(28 - (s % 5));
+		snapshot.strokeRatio.set(s % 3);
+		snapshot.energy.set(s / 10);
+		snapshot.offset.set(1000 + s * 250);
+		return snapshot;
+	}
+}
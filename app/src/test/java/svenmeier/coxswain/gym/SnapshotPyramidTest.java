@@ -0,0 +1,55 @@
+package svenmeier.coxswain.gym;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Test for {@link SnapshotPyramid}.
+ */
+public class SnapshotPyramidTest {
+
+	@Test
+	public void levels() {
+		SnapshotPyramid pyramid = new SnapshotPyramid();
+
+		assertEquals(1000, pyramid.level(0).millis);
+		assertEquals(1000, pyramid.level(9999).millis);
+		assertEquals(10000, pyramid.level(10000).millis);
+		assertEquals(60000, pyramid.level(299999).millis);
+		assertEquals(300000, pyramid.level(Long.MAX_VALUE).millis);
+	}
+
+	@Test
+	public void aggregate() {
+		SnapshotPyramid pyramid = new SnapshotPyramid();
+		assertTrue(pyramid.isEmpty());
+
+		// ten minutes, 4 snapshots per second, with a single peak
+		for (int offset = 0; offset < 600000; offset += 250) {
+			int speed = offset == 123250 ? 900 : 300 + (offset / 1000) % 2;
+			pyramid.add(offset, speed, 120, 24);
+		}
+
+		assertEquals(300, pyramid.min(SnapshotPyramid.SPEED));
+		assertEquals(900, pyramid.max(SnapshotPyramid.SPEED));
+
+		int[] result = new int[3];
+		for (long millis : new long[]{1000, 10000, 60000, 300000}) {
+			SnapshotPyramid.Level level = pyramid.level(millis);
+
+			assertTrue(level.aggregate(SnapshotPyramid.SPEED, 120000, 120000 + millis, result));
+			assertEquals(300, result[0]);
+			assertEquals(millis == 1000 ? 300 : 900, result[1]);
+
+			assertTrue(level.aggregate(SnapshotPyramid.PULSE, 0, 600000, result));
+			assertEquals(120, result[0]);
+			assertEquals(120, result[1]);
+			assertEquals(120, result[2]);
+		}
+
+		assertFalse(pyramid.level(1000).aggregate(SnapshotPyramid.SPEED, 600000, 700000, result));
+	}
+}
@@ -0,0 +1,60 @@
+package svenmeier.coxswain.gym;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * Test for {@link SnapshotSeries}.
+ */
+public class SnapshotSeriesTest {
+
+	@Test
+	public void indexAt() {
+		SnapshotSeries series = new SnapshotSeries(0);
+		assertEquals(-1, series.indexAt(1000));
+
+		for (int s = 0; s < 20; s++) {
+			Snapshot snapshot = new Snapshot();
+			snapshot.distance.set(s);
+			snapshot.offset.set(1000 + s * 250);
+			series.add(snapshot);
+		}
+		assertEquals(20, series.size());
+
+		assertEquals(-1, series.indexAt(0));
+		assertEquals(-1, series.indexAt(999));
+		assertEquals(0, series.indexAt(1000));
+		assertEquals(0, series.indexAt(1249));
+		assertEquals(1, series.indexAt(1250));
+		assertEquals(19, series.indexAt(5750));
+		assertEquals(19, series.indexAt(100000));
+	}
+
+	@Test
+	public void insert() {
+		SnapshotSeries series = new SnapshotSeries(0);
+
+		series.insert(part(20, 30));
+		series.insert(part(0, 10));
+		series.insert(part(30, 40));
+		series.insert(part(10, 20));
+
+		assertEquals(40, series.size());
+		for (int s = 0; s < 40; s++) {
+			assertEquals(s, series.distance[s]);
+			assertEquals(s * 1000, series.offset[s]);
+		}
+	}
+
+	private SnapshotSeries part(int from, int to) {
+		SnapshotSeries part = new SnapshotSeries();
+		for (int s = from; s < to; s++) {
+			Snapshot snapshot = new Snapshot();
+			snapshot.distance.set(s);
+			snapshot.offset.set(s * 1000);
+			part.add(snapshot);
+		}
+		return part;
+	}
+}
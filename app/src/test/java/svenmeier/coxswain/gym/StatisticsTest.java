@@ -0,0 +1,76 @@
+package svenmeier.coxswain.gym;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Test for {@link Statistics}.
+ */
+public class StatisticsTest {
+
+	@Test
+	public void windows() {
+		Statistics statistics = new Statistics();
+
+		Measurement measurement = new Measurement();
+		Statistics.Values values = null;
+
+		// 150 seconds at 2 m/s, then 60 seconds at 4 m/s
+		for (int offset = 0; offset <= 210000; offset += 100) {
+			if (offset <= 150000) {
+				measurement.distance = offset / 500;
+				measurement.speed = 200;
+			} else {
+				measurement.distance = 300 + (offset - 150000) / 250;
+				measurement.speed = 400;
+			}
+
+			values = statistics.measured(offset, measurement);
+
+			if (offset == 150000) {
+				assertEquals(200, values.shortSpeed);
+				assertEquals(200, values.longSpeed);
+			}
+			if (offset == 160000) {
+				assertEquals(400, values.shortSpeed);
+				assertEquals(266, values.longSpeed);
+			}
+		}
+
+		assertEquals(400, values.shortSpeed);
+		assertEquals(400, values.longSpeed);
+
+		// last 500 meters since 40 meters
+		assertEquals(263, values.distanceSpeed);
+		assertEquals(189, values.distanceDuration);
+	}
+
+	@Test
+	public void segment() {
+		Statistics statistics = new Statistics();
+
+		Measurement measurement = new Measurement();
+		measurement.pulse = 100;
+		statistics.measured(0, measurement);
+		measurement.pulse = 120;
+		statistics.measured(1000, measurement);
+		measurement.pulse = 0;
+		Statistics.Values values = statistics.measured(2000, measurement);
+
+		assertEquals(100, values.minPulse);
+		assertEquals(120, values.maxPulse);
+		assertEquals(110, values.meanPulse);
+		assertTrue(values.smoothedPulse > 100 && values.smoothedPulse < 120);
+
+		statistics.segment();
+		measurement.pulse = 130;
+		values = statistics.measured(3000, measurement);
+
+		assertEquals(130, values.minPulse);
+		assertEquals(130, values.maxPulse);
+		assertEquals(130, values.meanPulse);
+		assertEquals(0, values.maxSpeed);
+	}
+}
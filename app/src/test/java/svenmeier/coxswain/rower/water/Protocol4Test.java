@@ -47,4 +47,132 @@ public class Protocol4Test {
 
 		assertEquals("#protocol 4>USB<_WR_#handshake complete>IV?<IV42020#version 42020>IRD140<IDT1E1151515>IRD057", trace.toString());
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void fragmented() throws Exception {
+		TestTransfer transfer = new TestTransfer();
+		TestTrace trace = new TestTrace();
+
+		Protocol4 protocol = new Protocol4(transfer, trace);
+		protocol.setOutputThrottle(0);
+
+		protocol.transfer(measurement);
+		transfer.assertOutput("USB\r\n");
+
+		transfer.setupInput("_WR_\r\nIDD05");
+		protocol.transfer(measurement);
+		transfer.assertOutput("IV?\r\n");
+		assertEquals(0, measurement.distance);
+
+		transfer.setupInput("7002A\r\nIDS1A91F\r\n");
+		protocol.transfer(measurement);
+		assertEquals(0x2A, measurement.distance);
+		assertEquals(0x1F, measurement.strokeRate);
+	}
+
+	@Test
+	public void numberFields() throws Exception {
+		TestTransfer transfer = new TestTransfer();
+		TestTrace trace = new TestTrace();
+
+		Protocol4 protocol = new Protocol4(transfer, trace);
+		protocol.setOutputThrottle(0);
+
+		protocol.transfer(measurement);
+		transfer.setupInput("_WR_\r\n");
+		protocol.transfer(measurement);
+		trace.result.setLength(0);
+
+		transfer.setupInput("IDD1400102\r\nIDS1A01F\r\nIDT08A00ABCD\r\nIDD1230001\r\nIDX057\r\n");
+		protocol.transfer(measurement);
+		assertEquals(0x0102, measurement.strokes);
+		// no pulse received
+		assertEquals(0, measurement.pulse);
+
+		assertEquals("<IDD1400102<IDS1A01F<IDT08A00ABCD<IDD1230001#unrecognized<IDX057#unrecognized>IRD140", trace.toString());
+	}
+
+	@Test
+	public void pipeline() throws Exception {
+		TestTransfer transfer = new TestTransfer();
+		TestTrace trace = new TestTrace();
+
+		Protocol4 protocol = new Protocol4(transfer, trace);
+		protocol.setOutputThrottle(0);
+		protocol.setPipeline(3);
+
+		protocol.transfer(measurement);
+		transfer.assertOutput("USB\r\n");
+
+		transfer.setupInput("_WR_\r\n");
+		protocol.transfer(measurement);
+		transfer.assertOutput("IV?\r\nIRD140\r\nIRD057\r\n");
+
+		// all outstanding
+		protocol.transfer(measurement);
+		transfer.assertOutput("");
+
+		transfer.setupInput("IV42020\r\nIDD0570010\r\n");
+		protocol.transfer(measurement);
+		transfer.assertOutput("IRD14A\r\nIRS1A9\r\n");
+		assertEquals(0x10, measurement.distance);
+
+		transfer.setupInput("IDD1400002\r\n");
+		protocol.transfer(measurement);
+		transfer.assertOutput("IRS1A0\r\n");
+		assertEquals(2, measurement.strokes);
+	}
+
+	@Test
+	public void schedule() throws Exception {
+		TestTransfer transfer = new TestTransfer();
+		TestTrace trace = new TestTrace();
+
+		Protocol4 protocol = new Protocol4(transfer, trace);
+		protocol.setOutputThrottle(0);
+
+		long now = 100000;
+
+		protocol.transfer(measurement, now);
+		transfer.assertOutput("USB\r\n");
+		transfer.setupInput("_WR_\r\n");
+		protocol.transfer(measurement, now);
+		transfer.assertOutput("IV?\r\n");
+
+		// each field once
+		String[] requests = {"IRD140", "IRD057", "IRD14A", "IRS1A9", "IRS1A0", "IRT08A", "IRT1E1"};
+		for (String request : requests) {
+			protocol.transfer(measurement, now);
+			transfer.assertOutput(request + "\r\n");
+		}
+
+		// nothing due
+		protocol.transfer(measurement, now + 50);
+		transfer.assertOutput("");
+
+		// speed only
+		protocol.transfer(measurement, now + 100);
+		transfer.assertOutput("IRD14A\r\n");
+		protocol.transfer(measurement, now + 150);
+		transfer.assertOutput("");
+
+		// most overdue first
+		protocol.transfer(measurement, now + 260);
+		transfer.assertOutput("IRD14A\r\n");
+		protocol.transfer(measurement, now + 260);
+		transfer.assertOutput("IRS1A9\r\n");
+		protocol.transfer(measurement, now + 260);
+		transfer.assertOutput("IRT1E1\r\n");
+		protocol.transfer(measurement, now + 260);
+		transfer.assertOutput("IRD057\r\n");
+		protocol.transfer(measurement, now + 260);
+		transfer.assertOutput("");
+
+		// energy is requested least often
+		String[] overdue = {"IRD14A", "IRS1A0", "IRD140", "IRD057", "IRS1A9", "IRT1E1", "IRT08A"};
+		for (String request : overdue) {
+			protocol.transfer(measurement, now + 1000);
+			transfer.assertOutput(request + "\r\n");
+		}
+	}
+}
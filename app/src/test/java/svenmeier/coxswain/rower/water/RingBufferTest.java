@@ -0,0 +1,72 @@
+package svenmeier.coxswain.rower.water;
+
+import org.junit.Test;
+
+import svenmeier.coxswain.rower.water.usb.RingBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test for {@link RingBuffer}.
+ */
+public class RingBufferTest {
+
+	@Test
+	public void wrap() {
+		RingBuffer ring = new RingBuffer(8);
+
+		byte[] bytes = new byte[8];
+
+		assertEquals(5, ring.write(new byte[]{1, 2, 3, 4, 5}, 0, 5));
+		assertEquals(3, ring.read(bytes, 0, 3));
+		assertEquals(1, bytes[0]);
+		assertEquals(3, bytes[2]);
+
+		// wraps around
+		assertEquals(6, ring.write(new byte[]{6, 7, 8, 9, 10, 11, 12}, 0, 7));
+		assertEquals(8, ring.available());
+
+		assertEquals(8, ring.read(bytes, 0, 8));
+		for (int b = 0; b < 8; b++) {
+			assertEquals(4 + b, bytes[b]);
+		}
+
+		assertEquals(0, ring.read(bytes, 0, 8));
+		assertEquals(0, ring.read(bytes, 0, 8, 10));
+	}
+
+	@Test
+	public void threads() throws Exception {
+		final RingBuffer ring = new RingBuffer(16);
+
+		final int count = 100000;
+
+		Thread producer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				byte[] bytes = new byte[7];
+				int value = 0;
+				while (value < count) {
+					int length = Math.min(bytes.length, count - value);
+					for (int b = 0; b < length; b++) {
+						bytes[b] = (byte) (value + b);
+					}
+					value += ring.write(bytes, 0, length);
+				}
+			}
+		});
+		producer.start();
+
+		byte[] bytes = new byte[5];
+		int value = 0;
+		while (value < count) {
+			int length = ring.read(bytes, 0, bytes.length, 1000);
+			for (int b = 0; b < length; b++) {
+				assertEquals((byte) value, bytes[b]);
+				value++;
+			}
+		}
+
+		producer.join();
+	}
+}
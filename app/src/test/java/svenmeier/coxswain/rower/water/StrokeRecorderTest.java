@@ -0,0 +1,78 @@
+package svenmeier.coxswain.rower.water;
+
+import org.junit.Test;
+
+import svenmeier.coxswain.gym.Measurement;
+import svenmeier.coxswain.gym.StrokeLog;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test for {@link StrokeRecorder}.
+ */
+public class StrokeRecorderTest {
+
+	Measurement measurement = new Measurement();
+
+	@Test
+	public void test() {
+		StrokeRecorder recorder = new StrokeRecorder();
+		StrokeLog log = new StrokeLog();
+
+		long now = 100000;
+		// recovery before first pull is ignored
+		recorder.recovering(measurement, now);
+
+		now += 1000;
+		measurement.distance = 10;
+		measurement.speed = 200;
+		recorder.pulling(measurement, now);
+		recorder.pulling(measurement, now + 100);
+
+		measurement.speed = 450;
+		recorder.speed(measurement);
+		measurement.speed = 300;
+		recorder.speed(measurement);
+
+		recorder.recovering(measurement, now + 800);
+		recorder.recovering(measurement, now + 900);
+
+		recorder.drainTo(log);
+		assertEquals(0, log.size());
+
+		measurement.distance = 18;
+		recorder.pulling(measurement, now + 2400);
+
+		recorder.drainTo(log);
+		assertEquals(1, log.size());
+		assertEquals(now, log.time[0]);
+		assertEquals(800, log.drive[0]);
+		assertEquals(1600, log.recovery[0]);
+		assertEquals(8, log.distance[0]);
+		assertEquals(450, log.peakSpeed[0]);
+
+		// drained
+		recorder.drainTo(log);
+		assertEquals(1, log.size());
+
+		recorder.recovering(measurement, now + 3000);
+		measurement.distance = 27;
+		recorder.pulling(measurement, now + 4500);
+
+		recorder.drainTo(log);
+		assertEquals(2, log.size());
+		assertEquals(now + 2400, log.time[1]);
+		assertEquals(600, log.drive[1]);
+		assertEquals(1500, log.recovery[1]);
+		assertEquals(9, log.distance[1]);
+		assertEquals(300, log.peakSpeed[1]);
+
+		StrokeLog decoded = StrokeLog.fromBytes(log.toBytes());
+		assertEquals(2, decoded.size());
+		assertEquals(now + 2400, decoded.time[1]);
+		assertEquals(600, decoded.drive[1]);
+		assertEquals(1500, decoded.recovery[1]);
+		assertEquals(9, decoded.distance[1]);
+		assertEquals(300, decoded.peakSpeed[1]);
+	}
+}
@@ -82,8 +82,16 @@ class TestTransfer implements ITransfer {
 		return length;
 	}
 
+	@Override
+	public void awaitInput(long timeout) {
+	}
+
 	@Override
 	public void bulkOutput(int length) {
 		this.length = length;
 	}
+
+	@Override
+	public void close() {
+	}
 }
@@ -0,0 +1,77 @@
+package svenmeier.coxswain.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+/**
+ * Test for {@link LongLruCache}.
+ */
+public class LongLruCacheTest {
+
+	@Test
+	public void eviction() {
+		LongLruCache<String> cache = new LongLruCache<>(3);
+
+		cache.put(1, "1");
+		cache.put(2, "2");
+		cache.put(3, "3");
+		assertEquals("1", cache.get(1));
+
+		cache.put(4, "4");
+		assertEquals(3, cache.size());
+		assertNull(cache.get(2));
+		assertEquals(Arrays.asList("4", "1", "3"), cache.values());
+
+		cache.put(1, "one");
+		assertEquals(3, cache.count());
+		assertEquals("one", cache.get(1));
+
+		assertEquals("3", cache.remove(3));
+		assertNull(cache.get(3));
+		assertEquals(2, cache.size());
+
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertNull(cache.get(1));
+	}
+
+	@Test
+	public void sizes() {
+		LongLruCache<String> cache = new LongLruCache<String>(10) {
+			@Override
+			protected int sizeOf(long key, String value) {
+				return value.length();
+			}
+		};
+
+		cache.put(1, "aaaa");
+		cache.put(2, "bbbb");
+		cache.put(3, "cc");
+		assertEquals(10, cache.size());
+
+		cache.put(4, "dddd");
+		assertNull(cache.get(1));
+		assertEquals(10, cache.size());
+
+		cache.put(5, "eeeeeeeeeee");
+		assertNull(cache.get(5));
+	}
+
+	@Test
+	public void collisions() {
+		LongLruCache<Long> cache = new LongLruCache<>(64);
+
+		for (long key = 0; key < 10000; key++) {
+			cache.put(key << 20, key);
+
+			for (long previous = Math.max(0, key - 63); previous <= key; previous++) {
+				assertEquals(Long.valueOf(previous), cache.get(previous << 20));
+			}
+		}
+		assertEquals(64, cache.count());
+	}
+}